@@ -0,0 +1,28 @@
+package org.logdoc.fairhttp.bench;
+
+import org.logdoc.fairhttp.service.api.Controller;
+import org.logdoc.fairhttp.service.http.Response;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 16:52
+ * fair-http-server ☭ sweat and blood
+ */
+public class BenchController extends Controller {
+    private static final byte[] hello = "hello".getBytes();
+
+    public Response hello() {
+        return ok(hello);
+    }
+
+    public Response user(final long id, final String name) {
+        return okText(id + ":" + name);
+    }
+
+    public CompletionStage<Response> userAsync(final long id) {
+        return CompletableFuture.completedFuture(okText(String.valueOf(id)));
+    }
+}
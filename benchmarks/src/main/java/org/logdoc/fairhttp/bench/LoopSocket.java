@@ -0,0 +1,58 @@
+package org.logdoc.fairhttp.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 16:40
+ * fair-http-server ☭ sweat and blood
+ */
+public class LoopSocket extends Socket {
+    private static final SocketAddress remote = new InetSocketAddress(InetAddress.getLoopbackAddress(), 40000);
+
+    private final byte[] input;
+    private final OutputStream sink;
+
+    public LoopSocket(final byte[] input) {
+        this(input, OutputStream.nullOutputStream());
+    }
+
+    public LoopSocket(final byte[] input, final OutputStream sink) {
+        this.input = input;
+        this.sink = sink;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ByteArrayInputStream(input);
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        return sink;
+    }
+
+    @Override
+    public void setSoTimeout(final int timeout) {
+    }
+
+    @Override
+    public SocketAddress getRemoteSocketAddress() {
+        return remote;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return false;
+    }
+
+    @Override
+    public synchronized void close() {
+    }
+}
@@ -0,0 +1,78 @@
+package org.logdoc.fairhttp.load;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 19:05
+ * fair-http-server ☭ sweat and blood
+ *
+ * Log-linear latency histogram in the HdrHistogram manner: every power of two is split into 128 linear sub-buckets,
+ * so any recorded value is reported with under 1% error regardless of magnitude. Not thread-safe, one per worker, merged afterwards.
+ */
+final class Histogram {
+    private static final int subBits = 7, subCount = 1 << subBits;
+
+    private final long[] counts = new long[64 * subCount];
+    private long total, min = Long.MAX_VALUE, max, sum;
+
+    void record(final long value) {
+        final long v = Math.max(0, value);
+
+        counts[index(v)]++;
+        total++;
+        sum += v;
+        min = Math.min(min, v);
+        max = Math.max(max, v);
+    }
+
+    void add(final Histogram other) {
+        for (int i = 0; i < counts.length; i++)
+            counts[i] += other.counts[i];
+
+        total += other.total;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    long count() {
+        return total;
+    }
+
+    long min() {
+        return total == 0 ? 0 : min;
+    }
+
+    long max() {
+        return max;
+    }
+
+    double mean() {
+        return total == 0 ? 0 : (double) sum / total;
+    }
+
+    long percentile(final double p) {
+        if (total == 0)
+            return 0;
+
+        final long rank = Math.max(1, (long) Math.ceil(total * p / 100d));
+        long seen = 0;
+
+        for (int i = 0; i < counts.length; i++)
+            if ((seen += counts[i]) >= rank)
+                return Math.min(max, highest(i));
+
+        return max;
+    }
+
+    private static int index(final long v) {
+        final int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(v) - subBits);
+
+        return shift * subCount + (int) (v >>> shift);
+    }
+
+    private static long highest(final int index) {
+        final int shift = index < 2 * subCount ? 0 : index / subCount - 1;
+
+        return ((long) (index - shift * subCount) << shift) + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,301 @@
+package org.logdoc.fairhttp.load;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 19:40
+ * fair-http-server ☭ sweat and blood
+ *
+ * One blocking loopback client. Latencies are recorded in microseconds, only for requests started after warm-up.
+ */
+final class LoadClient implements Runnable {
+    private final String host;
+    private final int port;
+    private final Scenario scenario;
+    private final boolean keepAlive;
+    private final long warmupUntil, until;
+    private final byte[] request, wsFrame;
+
+    final Histogram histogram = new Histogram();
+    long ok, failed, reconnects, bytes;
+
+    private Socket socket;
+    private InputStream is;
+    private OutputStream os;
+
+    LoadClient(final String host, final int port, final Scenario scenario, final boolean keepAlive, final long warmupUntil, final long until) {
+        this.host = host;
+        this.port = port;
+        this.scenario = scenario;
+        this.keepAlive = keepAlive;
+        this.warmupUntil = warmupUntil;
+        this.until = until;
+
+        if (scenario.websocket) {
+            final byte[] key = new byte[16];
+            ThreadLocalRandom.current().nextBytes(key);
+
+            request = ("GET " + scenario.path + " HTTP/1.1\r\nHost: " + host + ":" + port + "\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n" +
+                    "Sec-WebSocket-Key: " + Base64.getEncoder().encodeToString(key) + "\r\nSec-WebSocket-Version: 13\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+            wsFrame = maskedFrame(scenario.body);
+        } else {
+            final StringBuilder sb = new StringBuilder(scenario.method).append(' ').append(scenario.path).append(" HTTP/1.1\r\nHost: ").append(host).append(':').append(port)
+                    .append("\r\nConnection: ").append(keepAlive ? "keep-alive" : "close").append("\r\n");
+
+            if (scenario.body.length > 0)
+                sb.append("Content-Type: application/json\r\nContent-Length: ").append(scenario.body.length).append("\r\n");
+
+            final byte[] head = sb.append("\r\n").toString().getBytes(StandardCharsets.US_ASCII);
+            request = Arrays.copyOf(head, head.length + scenario.body.length);
+            System.arraycopy(scenario.body, 0, request, head.length, scenario.body.length);
+            wsFrame = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (scenario.websocket)
+                runWs();
+            else
+                runHttp();
+        } finally {
+            disconnect();
+        }
+    }
+
+    private void runHttp() {
+        long started;
+
+        while ((started = System.nanoTime()) < until) {
+            try {
+                final boolean reused = socket != null;
+
+                if (!reused)
+                    connect();
+
+                long got;
+                try {
+                    got = exchange();
+                } catch (final IOException e) {
+                    if (!reused)
+                        throw e;
+                    got = -1;
+                }
+
+                if (got < 0 && reused) { // server dropped connection between requests
+                    reconnects++;
+                    disconnect();
+                    connect();
+                    got = exchange();
+                }
+
+                if (got < 0)
+                    throw new EOFException("Connection closed before response");
+
+                count(started, got);
+            } catch (final IOException e) {
+                if (started >= warmupUntil)
+                    failed++;
+                disconnect();
+            }
+        }
+    }
+
+    private void runWs() {
+        long started;
+
+        while ((started = System.nanoTime()) < until)
+            try {
+                if (socket == null) {
+                    connect();
+
+                    if (exchange() < 0)
+                        throw new EOFException("Handshake failed");
+
+                    continue;
+                }
+
+                os.write(wsFrame);
+                os.flush();
+
+                count(started, readFrame());
+            } catch (final IOException e) {
+                if (started >= warmupUntil)
+                    failed++;
+                disconnect();
+            }
+    }
+
+    private void count(final long started, final long got) {
+        if (started < warmupUntil)
+            return;
+
+        histogram.record((System.nanoTime() - started) / 1000L);
+        bytes += got;
+        ok++;
+    }
+
+    private void connect() throws IOException {
+        socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(30000);
+        socket.connect(new InetSocketAddress(host, port), 5000);
+        is = new BufferedInputStream(socket.getInputStream(), 64 * 1024);
+        os = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024);
+    }
+
+    private void disconnect() {
+        if (socket != null)
+            try { socket.close(); } catch (final Exception ignore) { }
+
+        socket = null;
+    }
+
+    // returns body length, -1 if connection was closed before status line
+    private long exchange() throws IOException {
+        os.write(request);
+        os.flush();
+
+        final String status = line();
+        if (status == null)
+            return -1;
+
+        if (status.length() < 12 || !status.startsWith("HTTP/1."))
+            throw new IOException("Malformed status line: " + status);
+
+        final int code = Integer.parseInt(status.substring(9, 12));
+        long length = -1;
+        boolean close = !keepAlive;
+
+        String line;
+        while ((line = line()) != null && !line.isEmpty()) {
+            final int idx = line.indexOf(':');
+            if (idx < 0)
+                continue;
+
+            final String name = line.substring(0, idx).trim(), value = line.substring(idx + 1).trim();
+
+            if (name.equalsIgnoreCase("Content-Length"))
+                length = Long.parseLong(value);
+            else if (name.equalsIgnoreCase("Connection") && value.equalsIgnoreCase("close"))
+                close = true;
+        }
+
+        if (code == 101)
+            return 0;
+
+        long body = 0;
+        if (length >= 0)
+            body = skip(length);
+        else {
+            while (is.read() != -1)
+                body++;
+            close = true;
+        }
+
+        if (close)
+            disconnect();
+
+        if (code >= 400)
+            throw new IOException("Server replied " + code);
+
+        return body;
+    }
+
+    private long readFrame() throws IOException {
+        while (true) {
+            final int b0 = is.read(), b1 = is.read();
+            if (b0 == -1 || b1 == -1)
+                throw new EOFException();
+
+            long length = b1 & 0x7F;
+            final int ext = length == 126 ? 2 : length == 127 ? 8 : 0;
+
+            if (ext > 0) {
+                length = 0;
+                for (int i = 0; i < ext; i++) {
+                    final int b = is.read();
+                    if (b == -1)
+                        throw new EOFException();
+                    length = (length << 8) | b;
+                }
+            }
+
+            skip(length);
+
+            final int opcode = b0 & 0x0F;
+            if (opcode == 8)
+                throw new EOFException("Closed by server");
+
+            if (opcode < 8 && (b0 & 0x80) != 0)
+                return length;
+        }
+    }
+
+    private long skip(final long length) throws IOException {
+        long left = length;
+
+        while (left > 0) {
+            final long skipped = is.skip(left);
+
+            if (skipped <= 0) {
+                if (is.read() == -1)
+                    throw new EOFException();
+                left--;
+            } else
+                left -= skipped;
+        }
+
+        return length;
+    }
+
+    private String line() throws IOException {
+        final StringBuilder sb = new StringBuilder(64);
+        int b;
+
+        while ((b = is.read()) != -1) {
+            if (b == '\n')
+                return sb.toString();
+
+            if (b != '\r')
+                sb.append((char) b);
+        }
+
+        return sb.length() == 0 ? null : sb.toString();
+    }
+
+    private static byte[] maskedFrame(final byte[] payload) {
+        final byte[] mask = new byte[4];
+        ThreadLocalRandom.current().nextBytes(mask);
+
+        final ByteArrayOutputStream os = new ByteArrayOutputStream(payload.length + 14);
+        os.write(0x81);
+
+        if (payload.length <= 125)
+            os.write(0x80 | payload.length);
+        else if (payload.length <= 65535) {
+            os.write(0x80 | 126);
+            os.write(payload.length >>> 8);
+            os.write(payload.length);
+        } else {
+            os.write(0x80 | 127);
+            for (int i = 7; i >= 0; i--)
+                os.write((int) ((long) payload.length >>> (8 * i)));
+        }
+
+        os.write(mask, 0, 4);
+
+        for (int i = 0; i < payload.length; i++)
+            os.write(payload[i] ^ mask[i & 3]);
+
+        return os.toByteArray();
+    }
+}
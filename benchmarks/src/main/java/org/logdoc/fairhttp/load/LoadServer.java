@@ -0,0 +1,110 @@
+package org.logdoc.fairhttp.load;
+
+import com.typesafe.config.ConfigFactory;
+import org.logdoc.fairhttp.service.api.helpers.Endpoint;
+import org.logdoc.fairhttp.service.api.helpers.Headers;
+import org.logdoc.fairhttp.service.http.Response;
+import org.logdoc.fairhttp.service.http.Server;
+import org.logdoc.fairhttp.service.http.WSBuilder;
+import org.logdoc.fairhttp.service.http.WebSocket;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.logdoc.helpers.Digits.getInt;
+import static org.logdoc.helpers.std.MimeTypes.BINARY;
+import static org.logdoc.helpers.std.MimeTypes.JSON;
+import static org.logdoc.helpers.std.MimeTypes.TEXTPLAIN;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 19:20
+ * fair-http-server ☭ sweat and blood
+ *
+ * Embedded server with synthetic endpoints:
+ * GET /static - fixed body, GET /delay/:ms - CompletionStage completed after ms, POST /echo - json body echoed back,
+ * GET /file - temp file streamed from disk, GET /ws - websocket echo.
+ * Server itself is configured by usual config (application.conf / -Dfair.http...), only port is overridden.
+ */
+final class LoadServer {
+    private final Path file;
+    final int port;
+
+    LoadServer(final int bodySize, final int fileSize) throws IOException {
+        try (final ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+
+        final byte[] body = new byte[bodySize];
+        Arrays.fill(body, (byte) 'x');
+
+        final byte[] content = new byte[fileSize];
+        Arrays.fill(content, (byte) 'f');
+        file = Files.createTempFile("fair-load", ".bin");
+        file.toFile().deleteOnExit();
+        Files.write(file, content);
+
+        final Server server = new Server(ConfigFactory.parseString("fair.http.port = " + port).withFallback(ConfigFactory.load()));
+
+        server.addEndpoint(Endpoint.sync(Endpoint.Method.GET, "/static", (request, pathMap) -> {
+            final Response response = Response.Ok();
+            response.setPayload(body, TEXTPLAIN);
+
+            return response;
+        }));
+
+        server.addEndpoint(Endpoint.sync(Endpoint.Method.POST, "/echo", (request, pathMap) -> {
+            final Response response = Response.Ok();
+            response.setPayload(request.bodyBytes(), JSON);
+
+            return response;
+        }));
+
+        server.addEndpoint(Endpoint.async(Endpoint.Method.GET, "/delay/:ms", (request, pathMap) ->
+                CompletableFuture.supplyAsync(() -> {
+                    final Response response = Response.Ok();
+                    response.setPayload(body, TEXTPLAIN);
+
+                    return response;
+                }, CompletableFuture.delayedExecutor(getInt(pathMap.get("ms")), TimeUnit.MILLISECONDS))));
+
+        server.addEndpoint(Endpoint.sync(Endpoint.Method.GET, "/file", (request, pathMap) -> {
+            final Response response = Response.Ok();
+            response.header(Headers.ContentType, BINARY);
+            response.header(Headers.ContentLength, fileSize);
+            response.setPromise(os -> {
+                try {
+                    Files.copy(file, os);
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            return response;
+        }));
+
+        server.addEndpoint(Endpoint.sync(Endpoint.Method.GET, "/ws", (request, pathMap) -> {
+            final AtomicReference<WebSocket> self = new AtomicReference<>();
+
+            final WebSocket ws = WSBuilder.from(request)
+                    .withTextHandler(s -> self.get().send(s))
+                    .withBinaryHandler(bytes -> self.get().send(bytes))
+                    .build();
+
+            if (ws == null)
+                return Response.ClientError("Not a websocket request");
+
+            self.set(ws);
+            return ws;
+        }));
+
+        server.start();
+    }
+}
@@ -0,0 +1,168 @@
+package org.logdoc.fairhttp.load;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 19:55
+ * fair-http-server ☭ sweat and blood
+ *
+ * Loopback load generator. Arguments are key=value pairs:
+ * scenario=static|json|async|file|ws (static), clients=N (16), duration=30s, warmup=5s, keepalive=true,
+ * size=1k (response body for static/async, request body for json/ws), file_size=1m, delay=10ms (async),
+ * path=/custom (override scenario path, e.g. to hit statics), target=host:port (use external server instead of embedded one),
+ * out=file.json (machine readable result).
+ */
+public final class LoadTest {
+    private static final double[] percentiles = {50, 90, 99, 99.9};
+
+    public static void main(final String[] args) throws Exception {
+        final Map<String, String> opts = new HashMap<>();
+        for (final String arg : args) {
+            final int idx = arg.indexOf('=');
+
+            if (idx > 0)
+                opts.put(arg.substring(0, idx).trim().toLowerCase(Locale.ROOT), arg.substring(idx + 1).trim());
+        }
+
+        final int clients = (int) size(opts.getOrDefault("clients", "16"));
+        final long duration = millis(opts.getOrDefault("duration", "30s")), warmup = millis(opts.getOrDefault("warmup", "5s"));
+        final boolean keepAlive = Boolean.parseBoolean(opts.getOrDefault("keepalive", "true"));
+        final int size = (int) size(opts.getOrDefault("size", "1k"));
+        final Scenario scenario = Scenario.of(opts.getOrDefault("scenario", "static"), opts.get("path"), size, (int) millis(opts.getOrDefault("delay", "10ms")));
+
+        final String host;
+        final int port;
+
+        if (opts.containsKey("target")) {
+            final String target = opts.get("target");
+            final int idx = target.lastIndexOf(':');
+
+            host = target.substring(0, idx);
+            port = Integer.parseInt(target.substring(idx + 1));
+        } else {
+            host = "127.0.0.1";
+            port = new LoadServer(size, (int) size(opts.getOrDefault("file_size", "1m"))).port;
+        }
+
+        awaitListening(host, port);
+
+        System.out.println("Scenario: " + scenario + ", clients: " + clients + ", keep-alive: " + keepAlive + ", warm-up: " + warmup + "ms, duration: " + duration + "ms, target: " + host + ":" + port);
+
+        final long start = System.nanoTime(), warmupUntil = start + TimeUnit.MILLISECONDS.toNanos(warmup), until = warmupUntil + TimeUnit.MILLISECONDS.toNanos(duration);
+        final List<LoadClient> workers = new ArrayList<>(clients);
+        final List<Thread> threads = new ArrayList<>(clients);
+
+        for (int i = 0; i < clients; i++) {
+            final LoadClient client = new LoadClient(host, port, scenario, keepAlive, warmupUntil, until);
+            final Thread thread = new Thread(client, "FairLoad-" + i);
+            thread.setDaemon(true);
+
+            workers.add(client);
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (final Thread thread : threads)
+            thread.join();
+
+        final Histogram total = new Histogram();
+        long ok = 0, failed = 0, reconnects = 0, bytes = 0;
+
+        for (final LoadClient client : workers) {
+            total.add(client.histogram);
+            ok += client.ok;
+            failed += client.failed;
+            reconnects += client.reconnects;
+            bytes += client.bytes;
+        }
+
+        final double seconds = duration / 1000d;
+        final StringBuilder report = new StringBuilder(512);
+
+        report.append(String.format(Locale.ROOT, "Requests: %d ok, %d failed, %d reconnects%n", ok, failed, reconnects));
+        report.append(String.format(Locale.ROOT, "Throughput: %.1f req/s, %.2f MB/s%n", ok / seconds, bytes / seconds / (1024 * 1024)));
+        report.append(String.format(Locale.ROOT, "Latency (us): min %d, mean %.1f", total.min(), total.mean()));
+        for (final double p : percentiles)
+            report.append(String.format(Locale.ROOT, ", p%s %d", p % 1 == 0 ? String.valueOf((int) p) : String.valueOf(p), total.percentile(p)));
+        report.append(String.format(Locale.ROOT, ", max %d%n", total.max()));
+
+        System.out.print(report);
+
+        if (opts.containsKey("out")) {
+            final StringBuilder json = new StringBuilder(512).append('{')
+                    .append("\"scenario\":\"").append(scenario.name).append("\",")
+                    .append("\"path\":\"").append(scenario.path).append("\",")
+                    .append("\"clients\":").append(clients).append(',')
+                    .append("\"keepalive\":").append(keepAlive).append(',')
+                    .append("\"duration_ms\":").append(duration).append(',')
+                    .append("\"ok\":").append(ok).append(',')
+                    .append("\"failed\":").append(failed).append(',')
+                    .append("\"reconnects\":").append(reconnects).append(',')
+                    .append("\"bytes\":").append(bytes).append(',')
+                    .append("\"rps\":").append(String.format(Locale.ROOT, "%.1f", ok / seconds)).append(',')
+                    .append("\"latency_us\":{")
+                    .append("\"min\":").append(total.min()).append(',')
+                    .append("\"mean\":").append(String.format(Locale.ROOT, "%.1f", total.mean())).append(',');
+
+            for (final double p : percentiles)
+                json.append("\"p").append(String.valueOf(p).replace(".0", "").replace(".", "")).append("\":").append(total.percentile(p)).append(',');
+
+            json.append("\"max\":").append(total.max()).append("}}\n");
+
+            Files.write(Paths.get(opts.get("out")), json.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        System.exit(failed > 0 && ok == 0 ? 1 : 0);
+    }
+
+    private static void awaitListening(final String host, final int port) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10000;
+
+        while (true)
+            try (final Socket probe = new Socket()) {
+                probe.connect(new InetSocketAddress(host, port), 500);
+                return;
+            } catch (final IOException e) {
+                if (System.currentTimeMillis() > deadline)
+                    throw new IllegalStateException("Server is not listening at " + host + ":" + port);
+
+                Thread.sleep(50);
+            }
+    }
+
+    private static long millis(final String value) {
+        final String v = value.toLowerCase(Locale.ROOT);
+
+        if (v.endsWith("ms"))
+            return Long.parseLong(v.substring(0, v.length() - 2));
+        if (v.endsWith("s"))
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(v.substring(0, v.length() - 1)));
+        if (v.endsWith("m"))
+            return TimeUnit.MINUTES.toMillis(Long.parseLong(v.substring(0, v.length() - 1)));
+
+        return Long.parseLong(v);
+    }
+
+    private static long size(final String value) {
+        final String v = value.toLowerCase(Locale.ROOT).replace("b", "");
+
+        if (v.endsWith("k"))
+            return Long.parseLong(v.substring(0, v.length() - 1)) * 1024;
+        if (v.endsWith("m"))
+            return Long.parseLong(v.substring(0, v.length() - 1)) * 1024 * 1024;
+
+        return Long.parseLong(v);
+    }
+}
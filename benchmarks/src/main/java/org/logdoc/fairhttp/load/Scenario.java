@@ -0,0 +1,55 @@
+package org.logdoc.fairhttp.load;
+
+import java.util.Arrays;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 19:35
+ * fair-http-server ☭ sweat and blood
+ */
+final class Scenario {
+    final String name, method, path;
+    final byte[] body;
+    final boolean websocket;
+
+    private Scenario(final String name, final String method, final String path, final byte[] body, final boolean websocket) {
+        this.name = name;
+        this.method = method;
+        this.path = path;
+        this.body = body;
+        this.websocket = websocket;
+    }
+
+    static Scenario of(final String name, final String path, final int size, final int delayMs) {
+        switch (name) {
+            case "static":
+                return new Scenario(name, "GET", path == null ? "/static" : path, new byte[0], false);
+            case "json":
+                return new Scenario(name, "POST", path == null ? "/echo" : path, json(size), false);
+            case "async":
+                return new Scenario(name, "GET", path == null ? "/delay/" + delayMs : path, new byte[0], false);
+            case "file":
+                return new Scenario(name, "GET", path == null ? "/file" : path, new byte[0], false);
+            case "ws":
+                final byte[] payload = new byte[size];
+                Arrays.fill(payload, (byte) 'w');
+                return new Scenario(name, "GET", path == null ? "/ws" : path, payload, true);
+            default:
+                throw new IllegalArgumentException("Unknown scenario: " + name + ", expected one of: static, json, async, file, ws");
+        }
+    }
+
+    private static byte[] json(final int size) {
+        final StringBuilder sb = new StringBuilder(size + 32).append("{\"data\":\"");
+
+        while (sb.length() < size - 2)
+            sb.append('j');
+
+        return sb.append("\"}").toString().getBytes();
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + method + " " + path + (body.length > 0 ? ", " + body.length + " bytes out" : "") + ")";
+    }
+}
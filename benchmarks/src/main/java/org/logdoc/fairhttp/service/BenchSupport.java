@@ -0,0 +1,17 @@
+package org.logdoc.fairhttp.service;
+
+import com.typesafe.config.ConfigFactory;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 16:55
+ * fair-http-server ☭ sweat and blood
+ */
+public final class BenchSupport {
+    private BenchSupport() {
+    }
+
+    public static void initDI() {
+        DI.init(ConfigFactory.load());
+    }
+}
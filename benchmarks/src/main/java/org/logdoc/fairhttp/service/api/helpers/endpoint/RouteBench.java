@@ -0,0 +1,84 @@
+package org.logdoc.fairhttp.service.api.helpers.endpoint;
+
+import org.logdoc.fairhttp.service.http.Response;
+import org.logdoc.helpers.gears.Pair;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 17:10
+ * fair-http-server ☭ sweat and blood
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteBench {
+    private static final String[] resources = {"users", "teams", "projects", "tasks", "comments", "files", "invoices", "orders", "products", "reports"};
+
+    private final SortedSet<Route> routes = new TreeSet<>();
+    private Signature patterned;
+
+    @Setup
+    public void setup() {
+        routes.add(route("GET", "/api/v1/health"));
+        routes.add(route("GET", "/api/v1/version"));
+
+        for (final String r : resources) {
+            routes.add(route("GET", "/api/v1/" + r));
+            routes.add(route("POST", "/api/v1/" + r));
+            routes.add(route("GET", "/api/v1/" + r + "/:id"));
+            routes.add(route("PUT", "/api/v1/" + r + "/:id"));
+            routes.add(route("DELETE", "/api/v1/" + r + "/:id"));
+            routes.add(route("GET", "/api/v1/" + r + "/:id/history"));
+        }
+
+        routes.add(route("GET", "/files/*path"));
+
+        patterned = new Signature("/api/v1/projects/:id/history");
+    }
+
+    private static Route route(final String method, final String path) {
+        return new Route(method, new Signature(path), (request, pathMap) -> Response.Ok());
+    }
+
+    private boolean lookup(final String method, final String path) {
+        Pair<Boolean, Boolean> match;
+
+        for (final Route route : routes) {
+            match = route.match(method, path);
+
+            if (match.first && match.second)
+                return true;
+        }
+
+        return false;
+    }
+
+    @Benchmark
+    public boolean staticHit() {
+        return lookup("GET", "/api/v1/version");
+    }
+
+    @Benchmark
+    public boolean patternHit() {
+        return lookup("GET", "/api/v1/reports/42/history");
+    }
+
+    @Benchmark
+    public boolean miss() {
+        return lookup("GET", "/wp-admin/install.php");
+    }
+
+    @Benchmark
+    public Map<String, String> pathValues() {
+        return patterned.values("/api/v1/projects/42/history");
+    }
+}
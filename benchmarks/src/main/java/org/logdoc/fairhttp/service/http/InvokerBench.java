@@ -0,0 +1,70 @@
+package org.logdoc.fairhttp.service.http;
+
+import org.logdoc.fairhttp.bench.LoopSocket;
+import org.logdoc.fairhttp.service.BenchSupport;
+import org.logdoc.fairhttp.service.api.helpers.endpoint.invokers.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 17:40
+ * fair-http-server ☭ sweat and blood
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InvokerBench {
+    private static final String routes = "GET /hello org.logdoc.fairhttp.bench.BenchController.hello\n" +
+            "GET /user/:id org.logdoc.fairhttp.bench.BenchController.user(id, name[Query])\n" +
+            "GET /async/:id org.logdoc.fairhttp.bench.BenchController.userAsync(id)\n";
+
+    private final Map<String, ARequestInvoker> invokers = new HashMap<>();
+    private final Map<String, String> noHeaders = Collections.emptyMap(), pathMap = Collections.singletonMap("id", "42");
+    private LoopSocket socket;
+
+    @Setup
+    public void setup() {
+        BenchSupport.initDI();
+
+        final Function<Throwable, Response> errorHandler = t -> Response.ServerError();
+        socket = new LoopSocket(new byte[0]);
+
+        for (final EndpointResolver.Argued argued : EndpointResolver.resolve(routes.getBytes(StandardCharsets.UTF_8))) {
+            final boolean direct = Response.class.isAssignableFrom(argued.invMethod.getReturnType());
+            final List<BiFunction<Request, Map<String, String>, ?>> resolvers = argued.args.stream().map(arg -> arg.magic).collect(Collectors.toList());
+
+            invokers.put(argued.path, argued.args.isEmpty()
+                    ? direct ? new DirectUnresolvingInvoker(argued.invMethod, errorHandler, 10) : new IndirectUnresolvingInvoker(argued.invMethod, errorHandler, 10)
+                    : direct ? new DirectInvoker(argued.invMethod, resolvers, errorHandler, 10) : new IndirectInvoker(argued.invMethod, resolvers, errorHandler, 10));
+        }
+    }
+
+    private Request request(final String uri) {
+        return new Request(new RequestId("GET", uri), noHeaders, socket, 1024);
+    }
+
+    @Benchmark
+    public Response unresolving() {
+        return invokers.get("/hello").apply(request("/hello"), Collections.emptyMap());
+    }
+
+    @Benchmark
+    public Response resolving() {
+        return invokers.get("/user/:id").apply(request("/user/42?name=bob"), pathMap);
+    }
+
+    @Benchmark
+    public Response indirect() {
+        return invokers.get("/async/:id").apply(request("/async/42"), pathMap);
+    }
+}
@@ -0,0 +1,96 @@
+package org.logdoc.fairhttp.service.http;
+
+import org.logdoc.fairhttp.bench.LoopSocket;
+import org.logdoc.fairhttp.service.api.helpers.Headers;
+import org.logdoc.fairhttp.service.tools.Form;
+import org.logdoc.fairhttp.service.tools.MultiForm;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.logdoc.helpers.std.MimeTypes.JSON;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 17:24
+ * fair-http-server ☭ sweat and blood
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestBench {
+    private static final String boundary = "----FairBenchBoundary7MA4YWxkTrZu0gW";
+
+    private final Map<String, String> multiHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER), corsHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private byte[] form, multi, json;
+    private CORS cors;
+
+    @Setup
+    public void setup() throws IOException {
+        form = "name=John+Doe&email=john.doe%40example.com&age=42&city=New+York&tags=a&tags=b&tags=c&comment=Lorem+ipsum+dolor+sit+amet%2C+consectetur"
+                .getBytes(StandardCharsets.US_ASCII);
+
+        final byte[] file = new byte[64 * 1024];
+        Arrays.fill(file, (byte) 'x');
+
+        try (final ByteArrayOutputStream os = new ByteArrayOutputStream()) {
+            os.write(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"title\"\r\n\r\nQuarterly report\r\n").getBytes(StandardCharsets.UTF_8));
+            os.write(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"description\"\r\n\r\nNumbers for Q3, draft\r\n").getBytes(StandardCharsets.UTF_8));
+            os.write(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"report.bin\"\r\nContent-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            os.write(file);
+            os.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+            multi = os.toByteArray();
+        }
+
+        multiHeaders.put(Headers.ContentType, "multipart/form-data; boundary=" + boundary);
+        multiHeaders.put(Headers.ContentLength, String.valueOf(multi.length));
+
+        final StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 16; i++)
+            sb.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"item ").append(i).append("\",\"active\":true}");
+        json = sb.append(']').toString().getBytes(StandardCharsets.UTF_8);
+
+        cors = new CORS(null);
+        corsHeaders.put("Origin", "https://app.example.com");
+        corsHeaders.put(Headers.Auth, "Bearer token");
+        corsHeaders.put("Access-control-request-method", "POST");
+    }
+
+    @Benchmark
+    public RequestId requestId() {
+        return new RequestId("GET", "/api/v1/search?q=fair%20http%20server&page=2&size=50&sort=name&order=asc&filter=active");
+    }
+
+    @Benchmark
+    public Form form() {
+        return new Form(form);
+    }
+
+    @Benchmark
+    public MultiForm multiForm() {
+        return new Request(new RequestId("POST", "/upload"), multiHeaders, new LoopSocket(multi), 10 * 1024 * 1024).bodyMultiForm();
+    }
+
+    @Benchmark
+    public byte[] responseBytes() throws IOException {
+        final Response response = Response.Ok();
+        response.setPayload(json, JSON);
+
+        return response.asBytes();
+    }
+
+    @Benchmark
+    public Response corsWrap() {
+        return cors.wrap(corsHeaders, Response.Ok());
+    }
+}
@@ -0,0 +1,124 @@
+package org.logdoc.fairhttp.service.http;
+
+import org.logdoc.fairhttp.bench.LoopSocket;
+import org.logdoc.fairhttp.service.tools.websocket.extension.DefaultExtension;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 17:58
+ * fair-http-server ☭ sweat and blood
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebSocketBench {
+    private static final byte[] maskKey = {0x12, 0x34, 0x56, 0x78};
+
+    @Param({"128", "16384", "1048576"})
+    public int size;
+
+    private WebSocket writer, reader;
+    private byte[] binary, text, binaryFrame, textFrame, fragmented;
+    private String textString;
+    private long consumed;
+
+    @Setup
+    public void setup() {
+        binary = new byte[size];
+        Arrays.fill(binary, (byte) 0x5A);
+
+        final char[] chars = new char[size / 2];
+        Arrays.fill(chars, 'ж');
+        textString = new String(chars);
+        text = textString.getBytes(StandardCharsets.UTF_8);
+
+        binaryFrame = frame(2, true, binary);
+        textFrame = frame(1, true, text);
+
+        final int part = Math.max(1, size / 4);
+        try (final ByteArrayOutputStream os = new ByteArrayOutputStream(size + 64)) {
+            for (int from = 0, op = 2; from < size; from += part, op = 0)
+                os.write(frame(op, from + part >= size, Arrays.copyOfRange(binary, from, Math.min(size, from + part))));
+
+            fragmented = os.toByteArray();
+        } catch (final Exception e) {
+            throw new IllegalStateException(e);
+        }
+
+        writer = new WebSocket(new DefaultExtension(), null, null, bytes -> {}, ws -> {}, ws -> {}, reason -> {}, null, error -> {}, error -> {}, false, true, 0, 0);
+        writer.spinOff(new LoopSocket(new byte[0]));
+
+        reader = new WebSocket(new DefaultExtension(), s -> consumed += s.length(), null, bytes -> consumed += bytes.length, ws -> {}, ws -> {}, reason -> {}, null, error -> {}, error -> {}, true, false, 0, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        writer.close();
+    }
+
+    private static byte[] frame(final int opcode, final boolean fin, final byte[] payload) {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream(payload.length + 14);
+        os.write((fin ? 0x80 : 0) | opcode);
+
+        if (payload.length <= 125)
+            os.write(0x80 | payload.length);
+        else if (payload.length <= 65535) {
+            os.write(0x80 | 126);
+            os.write(payload.length >>> 8);
+            os.write(payload.length);
+        } else {
+            os.write(0x80 | 127);
+            for (int i = 7; i >= 0; i--)
+                os.write((int) ((long) payload.length >>> (8 * i)));
+        }
+
+        os.write(maskKey, 0, 4);
+
+        for (int i = 0; i < payload.length; i++)
+            os.write(payload[i] ^ maskKey[i & 3]);
+
+        return os.toByteArray();
+    }
+
+    @Benchmark
+    public void encodeBinary() {
+        writer.send(binary);
+    }
+
+    @Benchmark
+    public void encodeText() {
+        writer.send(textString);
+    }
+
+    @Benchmark
+    public void encodeUtf8() {
+        writer.sendText(text);
+    }
+
+    @Benchmark
+    public long decodeBinary() {
+        reader.feed(binaryFrame, 0, binaryFrame.length);
+        return consumed;
+    }
+
+    @Benchmark
+    public long decodeText() {
+        reader.feed(textFrame, 0, textFrame.length);
+        return consumed;
+    }
+
+    @Benchmark
+    public long decodeFragmented() {
+        reader.feed(fragmented, 0, fragmented.length);
+        return consumed;
+    }
+}
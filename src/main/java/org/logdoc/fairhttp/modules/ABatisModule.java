@@ -3,9 +3,18 @@ package org.logdoc.fairhttp.modules;
 import com.typesafe.config.Config;
 import com.zaxxer.hikari.HikariConfig;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
 import org.logdoc.fairhttp.service.DI;
 import org.logdoc.fairhttp.service.api.helpers.Preloaded;
+import org.logdoc.fairhttp.service.tools.CachePolicy;
 import org.logdoc.fairhttp.service.tools.MapperProvider;
+import org.logdoc.fairhttp.service.tools.QueryCache;
+import org.logdoc.fairhttp.service.tools.SqlScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.logdoc.helpers.Texts.notNull;
 
@@ -15,6 +24,8 @@ import static org.logdoc.helpers.Texts.notNull;
  * core-router ☭ sweat and blood
  */
 public abstract class ABatisModule implements Preloaded {
+    private static final Logger logger = LoggerFactory.getLogger(ABatisModule.class);
+
     @Override
     public final void configure(final Config rootConfig) {
         if (!rootConfig.hasPath("db")) return;
@@ -30,6 +41,39 @@ public abstract class ABatisModule implements Preloaded {
     }
 
     private void configNamed(final String name, final Config dbConfig) {
+        final HikariConfig hikariConfig = hikari(dbConfig);
+
+        ExecutorType executor = null;
+        if (dbConfig.hasPath("executor"))
+            try {
+                executor = ExecutorType.valueOf(dbConfig.getString("executor").trim().toUpperCase());
+            } catch (final Exception e) {
+                logger.warn("Unknown executor type '" + dbConfig.getString("executor") + "' for datasource '" + notNull(name, "default") + "'");
+            }
+
+        if (dbConfig.hasPath("batch_size"))
+            SqlScope.batchSize(name, dbConfig.getInt("batch_size"));
+
+        if (!dbConfig.hasPath("replicas")) {
+            DI.hikariDataSource(name, hikariConfig, executor);
+            return;
+        }
+
+        final List<HikariConfig> replicas = new ArrayList<>(2);
+        for (final Config rc : dbConfig.getConfigList("replicas")) { // what is not set for a replica is taken from primary
+            final HikariConfig replica = hikari(rc.withFallback(dbConfig));
+
+            if (replica.getPoolName() != null)
+                replica.setPoolName(replica.getPoolName() + "-replica-" + replicas.size());
+
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+
+        DI.hikariDataSource(name, hikariConfig, replicas, executor);
+    }
+
+    private HikariConfig hikari(final Config dbConfig) {
         final HikariConfig hikariConfig = new HikariConfig();
 
         hikariConfig.setJdbcUrl(dbConfig.getString("url"));
@@ -76,7 +120,7 @@ public abstract class ABatisModule implements Preloaded {
             hikariConfig.validate();
         }
 
-        DI.hikariDataSource(name, hikariConfig);
+        return hikariConfig;
     }
 
     public abstract void init();
@@ -144,6 +188,22 @@ public abstract class ABatisModule implements Preloaded {
         }
 
         DI.gain(named, Configuration.class).addMapper(clas);
+        QueryCache.check(DI.gain(named, Configuration.class), clas.getName());
         DI.bindProvider(named, clas, new MapperProvider<>(named, clas));
     }
+
+    protected final void addCache(final Class<?> mapper, final CachePolicy policy) {
+        addCache(null, mapper.getName(), policy);
+    }
+
+    // second level cache of mapper namespace, order against addMapper doesn't matter.
+    // The mapper must refer to it with @CacheNamespaceRef(name = "<namespace>"), otherwise its statements bypass the cache
+    protected final void addCache(final String named, final String namespace, final CachePolicy policy) {
+        if (notNull(named).equals("default")) {
+            addCache(null, namespace, policy);
+            return;
+        }
+
+        QueryCache.register(named, DI.gain(named, Configuration.class), namespace, policy);
+    }
 }
@@ -5,27 +5,42 @@ import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
 import org.apache.ibatis.session.SqlSessionManager;
 import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
 import org.logdoc.fairhttp.service.api.helpers.EagerSingleton;
 import org.logdoc.fairhttp.service.api.helpers.Endpoint;
+import org.logdoc.fairhttp.service.api.helpers.Pooled;
 import org.logdoc.fairhttp.service.api.helpers.Preloaded;
 import org.logdoc.fairhttp.service.api.helpers.Singleton;
 import org.logdoc.fairhttp.service.http.Request;
 import org.logdoc.fairhttp.service.http.Response;
 import org.logdoc.fairhttp.service.http.Server;
+import org.logdoc.fairhttp.service.tools.Metrics;
+import org.logdoc.fairhttp.service.tools.PoolMetrics;
+import org.logdoc.fairhttp.service.tools.RoutingDataSource;
+import org.logdoc.fairhttp.service.tools.StatementMetrics;
 import org.logdoc.helpers.gears.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.sql.DataSource;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
+import java.sql.Connection;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiFunction;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -42,17 +57,27 @@ import static org.logdoc.helpers.Texts.notNull;
 public final class DI {
     private static final Logger logger = LoggerFactory.getLogger("FairServer");
     private static final ConcurrentMap<String, DI> refMap = new ConcurrentHashMap<>(4);
+    private static final AtomicLong generation = new AtomicLong(0);
+    private static final Map<Class<?>, ScopePool> pools = new ConcurrentHashMap<>(8);
     private static Config config;
 
     private final Set<Class<? extends EagerSingleton>> eagers;
     private final Map<Class<?>, Class<?>> bindMap;
-    private final Map<Integer, Supplier<?>> knownConstructors;
-    private final Map<Integer, Object> singleMap;
+    private final Map<Class<?>, Supplier<?>> knownConstructors;
+    private final Map<Class<?>, Object> singleMap;
+    private final Map<Class<?>, Object> resolved; // requested type -> singleton at the end of its bindings, lock-free fast path
+    private final Map<Class<?>, ReentrantLock> locks;
+    private final Map<Class<?>, Thread> builders; // singleton type -> thread constructing it
+    private final Map<Thread, Class<?>> waits; // thread -> singleton type it is blocked on
 
     private DI() {
-        bindMap = new HashMap<>(64);
-        knownConstructors = new HashMap<>();
-        singleMap = new HashMap<>();
+        bindMap = new ConcurrentHashMap<>(64);
+        knownConstructors = new ConcurrentHashMap<>(64);
+        singleMap = new ConcurrentHashMap<>(64);
+        resolved = new ConcurrentHashMap<>(64);
+        locks = new ConcurrentHashMap<>(64);
+        builders = new ConcurrentHashMap<>(8);
+        waits = new ConcurrentHashMap<>(8);
         eagers = new HashSet<>(8);
     }
 
@@ -93,6 +118,7 @@ public final class DI {
         config = config0;
         logger.info("Initializing");
         refMap.putIfAbsent("", new DI());
+        Metrics.register("di.pools", DI::poolStats);
     }
 
     private static DI ref(final String name) {
@@ -104,29 +130,65 @@ public final class DI {
         return di;
     }
 
+    // modules may configure concurrently, the first one creates the named DI and the others bind into it
     private static void initRef(final String name) {
-        if (isEmpty(name) || refMap.get(name) != null)
-            return;
+        if (!isEmpty(name))
+            refMap.computeIfAbsent(name, n -> new DI());
+    }
+
+    static void preload(final Collection<Class<Preloaded>> classes, final Executor pool) {
+        final long started = System.currentTimeMillis();
+
+        if (pool == null || classes.size() < 2)
+            classes.forEach(DI::preload);
+        else
+            CompletableFuture.allOf(classes.stream().map(c -> CompletableFuture.runAsync(() -> preload(c), pool)).toArray(CompletableFuture[]::new)).join();
 
-        refMap.put(name, new DI());
+        if (!classes.isEmpty())
+            logger.info("Preloaded " + classes.size() + " modules in " + (System.currentTimeMillis() - started) + " ms");
     }
 
     static void preload(final Class<Preloaded> clas) {
         try {
             logger.info("Preloading '" + clas.getName() + "'");
+            final long started = System.currentTimeMillis();
 
             final Preloaded p = clas.getDeclaredConstructor().newInstance();
 
             p.configure(config);
 
-            logger.info("Successfully loaded '" + clas.getName() + "'");
+            logger.info("Successfully loaded '" + clas.getName() + "' in " + (System.currentTimeMillis() - started) + " ms");
         } catch (final Exception e) {
             logger.error("Cant load '" + clas.getName() + "' :: " + e.getMessage(), e);
         }
     }
 
     public static void initEagers() {
-        refMap.values().forEach(DI::initEagers0);
+        initEagers(null);
+    }
+
+    // independent eager singletons are built concurrently on the given pool, null pool means one by one
+    public static void initEagers(final Executor pool) {
+        refMap.values().forEach(di -> di.initEagers0(pool));
+    }
+
+    // resolves every binding ahead of traffic: cycles and unresolvable types are reported now, not on first request
+    public static boolean compile() {
+        final long started = System.currentTimeMillis();
+        final List<String> problems = new ArrayList<>(0);
+        final int[] types = new int[1];
+
+        refMap.forEach((name, di) -> types[0] += di.compile0(name, problems));
+
+        problems.forEach(p -> logger.error("DI graph :: " + p));
+        logger.info("DI graph compiled: " + types[0] + " types, " + problems.size() + " problems, " + (System.currentTimeMillis() - started) + " ms");
+
+        return problems.isEmpty();
+    }
+
+    // every bound type is built once, so constructors are discovered and singletons exist; datasources hand out a connection
+    public static void warmUp() {
+        refMap.values().forEach(DI::warmUp0);
     }
 
     public static void unbind(final Class<?> type) {
@@ -166,24 +228,144 @@ public final class DI {
         return ref(named).gainInternal(clas, Collections.emptyList());
     }
 
+    // instance for a request scope, pooled types are taken from their pool
+    @SuppressWarnings("unchecked")
+    public static <A> A scoped(final Class<A> clas) {
+        if (clas == null)
+            return null;
+
+        final ScopePool pool = pools.get(clas);
+        if (pool != null)
+            return (A) pool.acquire(() -> (Pooled) gain(clas));
+
+        final A value = gain(clas);
+
+        if (value instanceof Pooled)
+            pools.computeIfAbsent(clas, c -> new ScopePool(((Pooled) value).poolSize())).built();
+
+        return value;
+    }
+
+    // request scope is over, pooled instance goes back to its pool
+    public static void release(final Class<?> clas, final Object value) {
+        final ScopePool pool;
+
+        if (value instanceof Pooled && (pool = pools.get(clas)) != null)
+            pool.release((Pooled) value);
+    }
+
+    // instance can't be trusted any more (its request was abandoned), it is not returned to the pool
+    public static void discard(final Class<?> clas, final Object value) {
+        final ScopePool pool;
+
+        if (value instanceof Pooled && (pool = pools.get(clas)) != null)
+            pool.discard();
+    }
+
+    public static Map<String, PoolStats> poolStats() {
+        final Map<String, PoolStats> stats = new TreeMap<>();
+        pools.forEach((c, p) -> stats.put(c.getName(), p.stats()));
+
+        return stats;
+    }
+
+    // resolved once: singleton is captured, otherwise its constructor is. Valid while generation() is the same
+    public static <A> Supplier<A> provider(final Class<A> clas) {
+        return provider(null, clas);
+    }
+
+    public static <A> Supplier<A> provider(final String named, final Class<A> clas) {
+        return ref(named).providerInternal(clas);
+    }
+
+    // changes on any binding change, so captured providers know when to resolve again
+    public static long generation() {
+        return generation.get();
+    }
+
     public static void hikariDataSource(final String name, final HikariConfig config) {
+        hikariDataSource(name, config, null);
+    }
+
+    // executor - default for all sessions of the source, null means MyBatis default (SIMPLE)
+    public static void hikariDataSource(final String name, final HikariConfig config, final ExecutorType executor) {
+        try {
+            instrument(name, config);
+            dataSource(name, new HikariDataSource(config), executor);
+        } catch (final Exception e) {
+            logger.error("Hikari DataSource init failed :: " + e.getMessage(), e);
+            unhikari(name);
+        }
+    }
+
+    // primary with replicas under one name, reads are routed to replicas
+    public static void hikariDataSource(final String name, final HikariConfig primary, final List<HikariConfig> replicas, final ExecutorType executor) {
+        final List<HikariDataSource> started = new ArrayList<>(replicas.size());
+
+        try {
+            for (final HikariConfig r : replicas) {
+                instrument(name, r);
+                started.add(new HikariDataSource(r));
+            }
+
+            instrument(name, primary);
+
+            dataSource(name, new RoutingDataSource(new HikariDataSource(primary), started), executor);
+        } catch (final Exception e) {
+            logger.error("Hikari DataSource init failed :: " + e.getMessage(), e);
+            started.forEach(HikariDataSource::close);
+            unhikari(name);
+        }
+    }
+
+    private static void dataSource(final String name, final DataSource dataSource, final ExecutorType executor) {
         try {
             final Configuration cfg = new Configuration(new Environment.Builder(notNull(name))
-                    .transactionFactory(new JdbcTransactionFactory())
-                    .dataSource(new HikariDataSource(config))
+                    .transactionFactory(dataSource instanceof RoutingDataSource ? new RoutingDataSource.Transactions() : new JdbcTransactionFactory())
+                    .dataSource(dataSource)
                     .build());
 
+            if (executor != null)
+                cfg.setDefaultExecutorType(executor);
+
+            if (dataSource instanceof RoutingDataSource)
+                Metrics.register("db." + notNull(name, "default") + ".routing", dataSource::toString);
+
+            if (dbMetrics()) {
+                final StatementMetrics statements = new StatementMetrics(name, slowQueryMs());
+                cfg.addInterceptor(statements);
+                Metrics.register("db." + notNull(name, "default") + ".statements", statements::snapshot);
+            }
+
             final SqlSessionFactory factory = new SqlSessionFactoryBuilder().build(cfg);
 
             bindProvider(name, Configuration.class, () -> cfg);
-            bindProvider(name, SqlSessionManager.class, () -> SqlSessionManager.newInstance(factory));
+            final SqlSessionManager manager = SqlSessionManager.newInstance(factory); // one per source, its managed session is per thread
+            bindProvider(name, SqlSessionManager.class, () -> manager);
             bind(name, SqlSessionFactory.class, SqlSessionManager.class);
         } catch (final Exception e) {
-            logger.error("Hikari DataSource init failed :: " + e.getMessage(), e);
+            logger.error("DataSource init failed :: " + e.getMessage(), e);
             unhikari(name);
         }
     }
 
+    // pool state and connection wait times go to Metrics, unless `fair.metrics.db = false`
+    // or the config already reports somewhere else (tracker factory or metric registry set by the caller)
+    private static void instrument(final String name, final HikariConfig config) {
+        if (!dbMetrics() || config.getMetricsTrackerFactory() != null || config.getMetricRegistry() != null)
+            return;
+
+        config.setMetricsTrackerFactory(new PoolMetrics(name));
+    }
+
+    private static boolean dbMetrics() {
+        return config == null || !config.hasPath("fair.metrics.db") || config.getBoolean("fair.metrics.db");
+    }
+
+    private static long slowQueryMs() {
+        return config != null && config.hasPath("fair.metrics.slow_query") ? config.getDuration("fair.metrics.slow_query", TimeUnit.MILLISECONDS) : 1000;
+    }
+
     public static void shutName(final String name) {
         if (isEmpty(name))
             return;
@@ -200,24 +382,161 @@ public final class DI {
 
     private synchronized void unbind0(final Class<?> type) {
         bindMap.remove(type);
-        knownConstructors.remove(type.hashCode());
-        singleMap.remove(type.hashCode());
+        knownConstructors.remove(type);
+        singleMap.remove(type);
+        changed();
     }
 
-    private synchronized void initEagers0() {
-        if (eagers.isEmpty())
-            return;
+    private void changed() {
+        resolved.clear();
+        pools.clear();
+        generation.incrementAndGet();
+    }
+
+    // an eager singleton starts as soon as eager singletons it depends on (directly or through plain types) are up
+    private void initEagers0(final Executor pool) {
+        final Set<Class<?>> todo;
+
+        synchronized (this) {
+            if (eagers.isEmpty())
+                return;
+
+            todo = new LinkedHashSet<>(eagers);
+            eagers.clear();
+        }
+
+        final long started = System.currentTimeMillis();
+
+        if (pool == null || todo.size() < 2)
+            todo.forEach(this::initEager);
+        else {
+            final Map<Class<?>, CompletableFuture<Void>> scheduled = new HashMap<>(todo.size());
+
+            for (final Class<?> c : todo)
+                schedule(c, todo, scheduled, new HashSet<>(4), pool);
+
+            CompletableFuture.allOf(scheduled.values().toArray(new CompletableFuture[0])).join();
+        }
+
+        logger.info("Eager singletons initialized: " + todo.size() + " in " + (System.currentTimeMillis() - started) + " ms");
+    }
+
+    private CompletableFuture<Void> schedule(final Class<?> c, final Set<Class<?>> todo, final Map<Class<?>, CompletableFuture<Void>> scheduled, final Set<Class<?>> path, final Executor pool) {
+        CompletableFuture<Void> f = scheduled.get(c);
+
+        if (f != null)
+            return f;
+
+        path.add(c);
+        final List<CompletableFuture<Void>> deps = new ArrayList<>(2);
+        for (final Class<?> d : eagerDeps(c, todo))
+            if (!path.contains(d)) // cycle, will fail on its own, don't wait for it
+                deps.add(schedule(d, todo, scheduled, path, pool));
+        path.remove(c);
+
+        f = CompletableFuture.allOf(deps.toArray(new CompletableFuture[0]))
+                .handle((v, e) -> null)
+                .thenRunAsync(() -> initEager(c), pool);
+        scheduled.put(c, f);
+
+        return f;
+    }
+
+    // eagers reachable through public constructors' parameters, plain types are walked through
+    private Set<Class<?>> eagerDeps(final Class<?> root, final Set<Class<?>> todo) {
+        final Set<Class<?>> deps = new HashSet<>(4), seen = new HashSet<>(8);
+        final Deque<Class<?>> queue = new ArrayDeque<>(8);
+        queue.add(root);
+
+        while (!queue.isEmpty()) {
+            final Class<?> c = target(queue.poll());
+
+            if (!seen.add(c) || knownConstructors.containsKey(c) || singleMap.containsKey(c))
+                continue;
+
+            if (c != root && todo.contains(c)) {
+                deps.add(c);
+                continue;
+            }
+
+            for (final Constructor<?> ctr : c.getDeclaredConstructors())
+                if (!ctr.isSynthetic() && Modifier.isPublic(ctr.getModifiers()))
+                    for (final Class<?> arg : ctr.getParameterTypes())
+                        if (!arg.isPrimitive() && !arg.isArray() && !arg.getName().startsWith("java."))
+                            queue.add(arg);
+        }
+
+        return deps;
+    }
+
+    private void initEager(final Class<?> c) {
+        final long started = System.currentTimeMillis();
 
-        final Collection<Class<?>> init = Collections.emptyList();
-        eagers.forEach(c -> {
+        try {
+            if (gainInternal(c, Collections.emptyList()) != null)
+                logger.info("Eager singleton '" + c.getName() + "' is up in " + (System.currentTimeMillis() - started) + " ms");
+        } catch (final Exception e) {
+            logger.warn("Cant eager init singleton '" + c.getName() + "' :: " + e.getMessage(), e);
+        }
+    }
+
+    private int compile0(final String name, final List<String> problems) {
+        final Set<Class<?>> types = new LinkedHashSet<>(bindMap.keySet());
+        final Set<Class<?>> compiled = new HashSet<>(types.size());
+        final String prefix = isEmpty(name) ? "" : "[" + name + "] ";
+
+        for (final Class<?> type : types) {
+            final List<Class<?>> chain = new ArrayList<>(2);
+            Class<?> c = type;
+
+            while (c != null && !chain.contains(c)) {
+                chain.add(c);
+                c = bindMap.get(c);
+            }
+
+            if (c != null) {
+                problems.add(prefix + type.getName() + ": binding cycle " + chain.stream().map(Class::getSimpleName).collect(Collectors.joining(" -> ")) + " -> " + c.getSimpleName());
+                continue;
+            }
+
+            if (!compiled.add(chain.get(chain.size() - 1)))
+                continue;
+
+            final List<String> own = new ArrayList<>(0);
             try {
-                gainInternal(c, init);
+                factory(chain.get(chain.size() - 1), Collections.emptyList(), own);
             } catch (final Exception e) {
-                logger.warn("Cant eager init singleton '" + c.getName() + "' :: " + e.getMessage(), e);
+                own.add(type.getName() + ": " + e.getMessage());
             }
-        });
 
-        eagers.clear();
+            own.forEach(p -> problems.add(prefix + p));
+        }
+
+        return compiled.size();
+    }
+
+    private void warmUp0() {
+        final List<Class<?>> types;
+        final Supplier<?> configuration;
+
+        synchronized (this) {
+            types = new ArrayList<>(bindMap.keySet());
+            configuration = knownConstructors.get(Configuration.class);
+        }
+
+        for (final Class<?> type : types)
+            try {
+                gainInternal(type, Collections.emptyList());
+            } catch (final Exception e) {
+                logger.warn("Cant warm up '" + type.getName() + "' :: " + e.getMessage());
+            }
+
+        if (configuration != null)
+            try (final Connection ignore = ((Configuration) configuration.get()).getEnvironment().getDataSource().getConnection()) {
+                logger.info("DataSource '" + ((Configuration) configuration.get()).getEnvironment().getId() + "' is up");
+            } catch (final Exception e) {
+                logger.warn("Cant warm up DataSource :: " + e.getMessage());
+            }
     }
 
     private synchronized <A> void bindProvider0(final Class<A> type, final Supplier<? extends A> provider) {
@@ -227,7 +546,8 @@ public final class DI {
         if (provider == null)
             throw new NullPointerException("Provider is null");
 
-        knownConstructors.put(type.hashCode(), provider);
+        knownConstructors.put(type, provider);
+        changed();
     }
 
     @SuppressWarnings("unchecked")
@@ -244,9 +564,37 @@ public final class DI {
         if (!type.equals(implementation))
             bindMap.put(type, implementation);
 
+        changed();
+
         logger.info("Bound type '" + type.getName() + "' to implementation '" + implementation.getName() + "'");
     }
 
+    @SuppressWarnings("unchecked")
+    private <A> Supplier<A> providerInternal(final Class<A> clas) {
+        if (clas == null)
+            return null;
+
+        if (clas.equals(Config.class))
+            return () -> (A) config;
+
+        Class<?> c = clas;
+        final Set<Class<?>> seen = new HashSet<>(4);
+        while (bindMap.containsKey(c) && seen.add(c))
+            c = bindMap.get(c);
+
+        final A value = gainInternal(clas, Collections.emptyList());
+
+        if (value == null)
+            return null;
+
+        if (resolved.get(clas) == value)
+            return () -> value;
+
+        final Supplier<A> constructor = (Supplier<A>) knownConstructors.get(c);
+
+        return constructor != null ? constructor : () -> gainInternal(clas, Collections.emptyList());
+    }
+
     @SuppressWarnings("unchecked")
     private <A> A gainInternal(final Class<A> clas, final Collection<Class<?>> ancestors) {
         if (clas == null)
@@ -255,6 +603,10 @@ public final class DI {
         if (clas.equals(Config.class))
             return (A) config;
 
+        final Object known = resolved.get(clas);
+        if (known != null)
+            return (A) known;
+
         final Class<?> c = bindMap.get(clas);
         if (c != null) {
             if (ancestors.contains(c))
@@ -263,55 +615,109 @@ public final class DI {
             final List<Class<?>> ancestorz = new ArrayList<>(ancestors);
             ancestorz.add(clas);
 
-            return (A) gainInternal(c, ancestorz);
-        }
+            final Object o = gainInternal(c, ancestorz);
+
+            if (o != null && resolved.get(c) == o)
+                resolved.putIfAbsent(clas, o);
 
-        final boolean singleton = Singleton.class.isAssignableFrom(clas);
-        final int hash = clas.hashCode();
+            return (A) o;
+        }
 
-        A value = null;
+        if (!Singleton.class.isAssignableFrom(clas))
+            return build(clas, ancestors);
 
-        if (singleton)
-            value = (A) singleMap.get(hash);
+        A value = (A) singleMap.get(clas);
 
-        boolean missed = value == null;
+        if (value == null) {
+            final ReentrantLock lock = locks.computeIfAbsent(clas, k -> new ReentrantLock()); // per type, so independent singletons are built concurrently
 
-        if (missed)
-            value = build(clas, hash, ancestors);
+            if (!lock.tryLock() && !await(clas, lock)) {
+                logger.error("!!! Cant build object of type '" + clas.getName() + "' :: dependency cycle, it is being built by a thread waiting for this one");
+                return null;
+            }
 
-        if (value == null)
-            return null;
+            try {
+                if ((value = (A) singleMap.get(clas)) == null) {
+                    final boolean outer = lock.getHoldCount() == 1; // nested hold is a same-thread cycle, ancestors will tell about it
+                    if (outer)
+                        builders.put(clas, Thread.currentThread());
 
-        if (singleton && missed)
-            synchronized (singleMap) {
-                singleMap.put(hash, value);
+                    try {
+                        if ((value = build(clas, ancestors)) != null)
+                            singleMap.put(clas, value);
+                    } finally {
+                        if (outer)
+                            builders.remove(clas);
+                    }
+                }
+            } finally {
+                lock.unlock();
             }
+        }
+
+        if (value != null)
+            resolved.putIfAbsent(clas, value);
 
         return value;
     }
 
+    // waits for a singleton built by another thread, unless that thread (through others) waits for what this one builds
+    private boolean await(final Class<?> clas, final ReentrantLock lock) {
+        final Thread me = Thread.currentThread();
+
+        synchronized (waits) {
+            Class<?> c = clas;
+
+            for (int hops = 0; hops <= waits.size(); hops++) {
+                final Thread owner = builders.get(c);
+
+                if (owner == me)
+                    return false;
+
+                if (owner == null || (c = waits.get(owner)) == null)
+                    break;
+            }
+
+            waits.put(me, clas);
+        }
+
+        try {
+            lock.lock();
+        } finally {
+            waits.remove(me);
+        }
+
+        return true;
+    }
+
+    private <A> A build(final Class<A> clas, final Collection<Class<?>> ancestors) {
+        final Supplier<A> factory = factory(clas, ancestors, null);
+
+        return factory == null ? null : factory.get();
+    }
+
+    // constructor is looked up once per type and turned into a no-args MethodHandle with resolved arguments bound into it
     @SuppressWarnings("unchecked")
-    private <A> A build(final Class<A> clas, final int hash, final Collection<Class<?>> ancestors) {
+    private <A> Supplier<A> factory(final Class<A> clas, final Collection<Class<?>> ancestors, final List<String> problems) {
         Supplier<A> constructor;
-        if ((constructor = (Supplier<A>) knownConstructors.get(hash)) != null)
-            return constructor.get();
+        if ((constructor = (Supplier<A>) knownConstructors.get(clas)) != null)
+            return constructor;
+
+        if (clas.isInterface() || Modifier.isAbstract(clas.getModifiers())) {
+            missed(clas, "no binding for abstract type", problems);
+            return null;
+        }
 
         final Constructor<A>[] ctrs = (Constructor<A>[]) clas.getDeclaredConstructors();
 
         for (final Constructor<A> c : ctrs)
             if (!c.isSynthetic() && c.getParameterCount() == 0 && Modifier.isPublic(c.getModifiers())) {
-                constructor = () -> {
-                    try {
-                        return c.newInstance();
-                    } catch (final Exception e) {
-                        logger.error("!!! Cant build object of type '" + clas.getName() + "' :: " + e.getMessage(), e);
-                        return null;
-                    }
-                };
-
+                constructor = handle(clas, c, Collections.emptyList());
                 break;
             }
 
+        final List<String> rejected = new ArrayList<>(0); // reported only if no candidate works out
+
         if (constructor == null) {
             final List<Class<?>> ancestorz = new ArrayList<>(ancestors);
             ancestorz.add(clas);
@@ -324,8 +730,14 @@ public final class DI {
                     argz = new ArrayList<>(args.length);
 
                     for (final Class<?> arg : args) {
-                        if (arg == null || arg.isPrimitive() || arg.isArray() || ancestors.contains(arg) || Map.class.isAssignableFrom(arg) || Collection.class.isAssignableFrom(arg) || arg.equals(clas) || Request.class.isAssignableFrom(arg))
+                        if (arg == null || arg.isPrimitive() || arg.isArray() || Map.class.isAssignableFrom(arg) || Collection.class.isAssignableFrom(arg) || Request.class.isAssignableFrom(arg))
+                            continue CYCLE;
+
+                        final Class<?> target = target(arg);
+                        if (ancestors.contains(arg) || ancestors.contains(target) || target.equals(clas)) {
+                            rejected.add("dependency cycle " + ancestorz.stream().map(Class::getSimpleName).collect(Collectors.joining(" -> ")) + " -> " + arg.getSimpleName());
                             continue CYCLE;
+                        }
 
                         if (arg.equals(Config.class))
                             argz.add(config);
@@ -334,8 +746,10 @@ public final class DI {
 
                             if (o != null)
                                 argz.add(o);
-                            else
+                            else {
+                                rejected.add("cant resolve argument '" + arg.getName() + "' of " + c);
                                 continue CYCLE;
+                            }
                         }
                     }
 
@@ -344,30 +758,64 @@ public final class DI {
                         continue;
                     }
 
-                    final List<Object> finalArgz = argz;
-                    constructor = () -> {
-                        try {
-                            return c.newInstance(finalArgz.toArray());
-                        } catch (final InstantiationException | IllegalAccessException | InvocationTargetException e) {
-                            logger.error("!!! Cant build object of type '" + clas.getName() + "' :: " + e.getMessage(), e);
-                            return null;
-                        }
-                    };
-                    break;
+                    if ((constructor = handle(clas, c, argz)) != null)
+                        break;
                 }
         }
 
         if (constructor == null) {
-            logger.error("!!! Cant build object of type '" + clas.getName() + "' :: no valid constructor found.");
+            final String why = "no valid constructor found" + (rejected.isEmpty() ? "" : ": " + String.join("; ", rejected));
+            logger.error("!!! Cant build object of type '" + clas.getName() + "' :: " + why);
+            missed(clas, why, problems);
             return null;
         }
 
-        synchronized (knownConstructors) {
-            knownConstructors.put(hash, constructor);
-        }
+        knownConstructors.put(clas, constructor);
+
+        return constructor;
+    }
 
-        return constructor.get();
+    private Class<?> target(final Class<?> type) {
+        Class<?> c = type, next;
+        int hops = 0;
+
+        while ((next = bindMap.get(c)) != null && hops++ < bindMap.size())
+            c = next;
+
+        return c;
     }
 
+    private static <A> Supplier<A> handle(final Class<A> clas, final Constructor<A> c, final List<Object> argz) {
+        final MethodHandle mh;
+
+        try {
+            mh = MethodHandles.insertArguments(MethodHandles.publicLookup().unreflectConstructor(c), 0, argz.toArray())
+                    .asType(MethodType.methodType(Object.class));
+        } catch (final IllegalAccessException e) { // public constructor of a non-public class, reflection still may pass
+            final Object[] args = argz.toArray();
+
+            return () -> {
+                try {
+                    return c.newInstance(args);
+                } catch (final Exception e1) {
+                    logger.error("!!! Cant build object of type '" + clas.getName() + "' :: " + e1.getMessage(), e1);
+                    return null;
+                }
+            };
+        }
+
+        return () -> {
+            try {
+                return clas.cast(mh.invokeExact());
+            } catch (final Throwable e) {
+                logger.error("!!! Cant build object of type '" + clas.getName() + "' :: " + e.getMessage(), e);
+                return null;
+            }
+        };
+    }
 
+    private static void missed(final Class<?> clas, final String problem, final List<String> problems) {
+        if (problems != null)
+            problems.add(clas.getName() + ": " + problem);
+    }
 }
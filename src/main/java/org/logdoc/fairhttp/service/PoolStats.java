@@ -0,0 +1,33 @@
+package org.logdoc.fairhttp.service;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 22:40
+ * fair-http-server ☭ sweat and blood
+ */
+public final class PoolStats {
+    public final long created, reused, returned, dropped, failed, idle, size;
+
+    PoolStats(final long created, final long reused, final long returned, final long dropped, final long failed, final long idle, final long size) {
+        this.created = created;
+        this.reused = reused;
+        this.returned = returned;
+        this.dropped = dropped;
+        this.failed = failed;
+        this.idle = idle;
+        this.size = size;
+    }
+
+    public long inUse() {
+        return Math.max(0, created + reused - returned - dropped - failed);
+    }
+
+    public double reuseRate() {
+        return created + reused == 0 ? 0 : (double) reused / (created + reused);
+    }
+
+    @Override
+    public String toString() {
+        return "created: " + created + ", reused: " + reused + ", returned: " + returned + ", dropped: " + dropped + ", failed: " + failed + ", idle: " + idle + " of " + size + ", in use: " + inUse();
+    }
+}
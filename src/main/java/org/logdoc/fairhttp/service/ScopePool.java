@@ -0,0 +1,74 @@
+package org.logdoc.fairhttp.service;
+
+import org.logdoc.fairhttp.service.api.helpers.Pooled;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 22:40
+ * fair-http-server ☭ sweat and blood
+ *
+ * Idle instances of one pooled type. Nothing is held while in use: an instance lost by the request is just built again.
+ */
+final class ScopePool {
+    private static final Logger logger = LoggerFactory.getLogger(ScopePool.class);
+
+    private final ArrayBlockingQueue<Pooled> idle;
+    private final AtomicLong created, reused, returned, dropped, failed;
+
+    ScopePool(final int size) {
+        idle = new ArrayBlockingQueue<>(Math.max(1, size));
+        created = new AtomicLong(0);
+        reused = new AtomicLong(0);
+        returned = new AtomicLong(0);
+        dropped = new AtomicLong(0);
+        failed = new AtomicLong(0);
+    }
+
+    Pooled acquire(final Supplier<Pooled> factory) {
+        Pooled p = idle.poll();
+
+        if (p != null) {
+            reused.incrementAndGet();
+            return p;
+        }
+
+        if ((p = factory.get()) != null)
+            created.incrementAndGet();
+
+        return p;
+    }
+
+    // first instance is built before the pool exists
+    void built() {
+        created.incrementAndGet();
+    }
+
+    void release(final Pooled p) {
+        try {
+            p.reset();
+        } catch (final Exception e) {
+            failed.incrementAndGet();
+            logger.warn("Cant reset pooled '" + p.getClass().getName() + "', dropped :: " + e.getMessage());
+            return;
+        }
+
+        if (idle.offer(p))
+            returned.incrementAndGet();
+        else
+            dropped.incrementAndGet();
+    }
+
+    void discard() {
+        dropped.incrementAndGet();
+    }
+
+    PoolStats stats() {
+        return new PoolStats(created.get(), reused.get(), returned.get(), dropped.get(), failed.get(), idle.size(), idle.size() + idle.remainingCapacity());
+    }
+}
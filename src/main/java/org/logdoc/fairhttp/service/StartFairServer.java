@@ -5,6 +5,7 @@ import com.typesafe.config.ConfigFactory;
 import org.logdoc.fairhttp.service.api.helpers.Preloaded;
 import org.logdoc.fairhttp.service.http.Response;
 import org.logdoc.fairhttp.service.http.Server;
+import org.logdoc.fairhttp.service.tools.ConfigTools;
 import org.logdoc.fairhttp.service.tools.ErrorHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,6 +13,10 @@ import org.slf4j.LoggerFactory;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.logdoc.helpers.std.MimeTypes.TEXTPLAIN;
 
@@ -71,19 +76,53 @@ public class StartFairServer {
             }
 
         s.setupConfigEndpoints(endpoints);
-        s.start();
 
+        final Config warmCfg = ConfigTools.sureConf(c, "fair.warmup");
+        final boolean beforeListen = s.warmsUp() && (!warmCfg.hasPath("before_listen") || warmCfg.getBoolean("before_listen"));
+
+        s.ready(false);
+
+        if (!beforeListen)
+            s.start();
+
+        final int threads = c.hasPath("fair.startup.threads") ? c.getInt("fair.startup.threads") : 1;
+        final ExecutorService pool = threads == 1 ? null : Executors.newFixedThreadPool(threads > 1 ? threads : Runtime.getRuntime().availableProcessors(), r -> {
+            final Thread t = new Thread(r, "FairStartup");
+            t.setDaemon(true);
+            return t;
+        });
+
+        final List<Class<Preloaded>> preloads = new ArrayList<>(8);
         if (c.hasPath("fair.preload.load"))
             c.getStringList("fair.preload.load")
                     .stream().distinct() // by some unknown reason here is doubled list of entries
                     .forEach(lc -> {
                         try {
-                            DI.preload((Class<Preloaded>) Class.forName(lc));
+                            preloads.add((Class<Preloaded>) Class.forName(lc));
                         } catch (final Exception e) {
                             logger.error("Cant preload '" + lc + "' :: " + e.getMessage(), e);
                         }
                     });
 
-        DI.initEagers();
+        DI.preload(preloads, pool);
+        DI.initEagers(pool);
+
+        if (pool != null)
+            pool.shutdown();
+
+        if (!DI.compile() && ConfigTools.sureBool(c, "fair.di.strict"))
+            throw new IllegalStateException("DI graph has unresolvable types, see log above");
+
+        if (s.warmsUp()) {
+            if (!warmCfg.hasPath("singletons") || warmCfg.getBoolean("singletons"))
+                DI.warmUp();
+
+            s.warmUp();
+        }
+
+        if (beforeListen)
+            s.start();
+
+        s.ready(true);
     }
 }
@@ -14,6 +14,8 @@ public interface Headers {
             ContentDisposition = "Content-disposition",
             Auth = "Authorization",
             Encoding = "Content-Encoding",
+            AcceptEncoding = "Accept-Encoding",
+            Vary = "Vary",
             Upgrade = "Upgrade",
             Connection = "Connection",
             Host = "Host",
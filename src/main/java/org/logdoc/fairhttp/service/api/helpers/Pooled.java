@@ -0,0 +1,19 @@
+package org.logdoc.fairhttp.service.api.helpers;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 22:30
+ * fair-http-server ☭ sweat and blood
+ *
+ * Request scoped object which is expensive to build: after the response is written it is reset and kept for next requests.
+ * If the handler timed out and still runs, its instances are not pooled again.
+ */
+public interface Pooled extends RequestScoped {
+    // clear everything the previous request left, throwing drops the instance
+    void reset() throws Exception;
+
+    // max idle instances kept, read from the first built instance
+    default int poolSize() {
+        return 32;
+    }
+}
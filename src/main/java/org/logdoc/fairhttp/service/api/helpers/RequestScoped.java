@@ -0,0 +1,11 @@
+package org.logdoc.fairhttp.service.api.helpers;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 22:30
+ * fair-http-server ☭ sweat and blood
+ *
+ * One instance per request: `request.scoped(Type.class)` builds it on first call and returns the same object until the response is written.
+ */
+public interface RequestScoped {
+}
@@ -1,5 +1,6 @@
 package org.logdoc.fairhttp.service.api.helpers.endpoint;
 
+import org.logdoc.fairhttp.service.api.helpers.endpoint.invokers.ARequestInvoker;
 import org.logdoc.fairhttp.service.http.Request;
 import org.logdoc.fairhttp.service.http.Response;
 import org.logdoc.helpers.gears.Pair;
@@ -33,6 +34,11 @@ public class Route implements Comparable<Route> {
         return invoker.apply(request, signature.values(request.path()));
     }
 
+    public void warmUp() {
+        if (invoker instanceof ARequestInvoker)
+            ((ARequestInvoker) invoker).warmUp();
+    }
+
     @Override
     public int compareTo(final Route o) {
         final int res = method.compareTo(o.method);
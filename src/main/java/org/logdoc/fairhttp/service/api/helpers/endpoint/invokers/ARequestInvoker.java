@@ -1,25 +1,41 @@
 package org.logdoc.fairhttp.service.api.helpers.endpoint.invokers;
 
+import com.typesafe.config.Config;
+import org.logdoc.fairhttp.service.DI;
 import org.logdoc.fairhttp.service.http.Request;
 import org.logdoc.fairhttp.service.http.Response;
+import org.logdoc.fairhttp.service.tools.Json;
+import org.logdoc.fairhttp.service.tools.SqlScope;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+import static org.logdoc.fairhttp.service.tools.ConfigTools.sureNN;
+
 /**
  * @author Denis Danilin | me@loslobos.ru
  * 12.08.2023 17:54
  * fair-http-server ☭ sweat and blood
  */
 public abstract class ARequestInvoker implements BiFunction<Request, Map<String, String>, Response> {
+    private static final int defaultThreads = 200, defaultQueue = 1000;
+
+    // handlers block and their SQL session is bound to the thread. A ForkJoin worker blocked in get() may run another request's
+    // handler on top of the first one, which then joins the foreign session - plain threads just park.
+    // Handlers past their timeout keep running, so the pool is bounded: over `fair.http.handler_threads` busy and
+    // `fair.http.handler_queue` waiting, new requests are refused with 503
+    private static volatile ExecutorService handlers = pool(defaultThreads, defaultQueue);
+
     protected final Method method;
     protected final Function<Throwable, Response> errorHandler;
     protected final int execTimeout;
+    private volatile Captured captured;
 
     protected ARequestInvoker(final Method method, final Function<Throwable, Response> errorHandler, final int execTimeout) {
         this.method = method;
@@ -30,7 +46,10 @@ public abstract class ARequestInvoker implements BiFunction<Request, Map<String,
     @Override
     public final Response apply(final Request request, final Map<String, String> pathMap) {
         try {
-            return CompletableFuture.supplyAsync(supplyAction(request, pathMap))
+            final CompletableFuture<Response> handler = CompletableFuture.supplyAsync(SqlScope.perRequest(request.method(), supplyAction(request, pathMap)), handlers);
+            request.handledBy(handler);
+
+            return handler
                     .exceptionally(e -> {
                         if (e instanceof RuntimeException)
                             throw (RuntimeException) e;
@@ -38,10 +57,86 @@ public abstract class ARequestInvoker implements BiFunction<Request, Map<String,
                         throw new RuntimeException(e);
                     })
                     .get(execTimeout, TimeUnit.SECONDS);
+        } catch (final RejectedExecutionException e) {
+            return overloaded();
         } catch (final Exception e) {
             return errorHandler.apply(e);
         }
     }
 
+    public static synchronized void configure(final Config cfg) {
+        final int threads = cfg != null && sureNN(cfg, "handler_threads") ? Math.max(1, cfg.getInt("handler_threads")) : defaultThreads;
+        final int queue = cfg != null && sureNN(cfg, "handler_queue") ? Math.max(0, cfg.getInt("handler_queue")) : defaultQueue;
+
+        final ExecutorService old = handlers;
+        handlers = pool(threads, queue);
+        old.shutdown(); // running handlers finish on their threads
+    }
+
+    public static Executor handlers() {
+        return handlers;
+    }
+
+    // reply to a request the handlers pool has no room for
+    public static Response overloaded() {
+        return new Response(503, "Service Unavailable");
+    }
+
+    private static ExecutorService pool(final int threads, final int queue) {
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                queue > 0 ? new LinkedBlockingQueue<>(queue) : new SynchronousQueue<>(),
+                r -> {
+                    final Thread t = new Thread(r, "FairHandler");
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+
+        return pool;
+    }
+
+    // builds the controller and Jackson deserializers of json-resolved arguments ahead of the first call
+    public void warmUp() {
+        controller();
+
+        for (final Type t : method.getGenericParameterTypes()) {
+            final Class<?> c = t instanceof Class ? (Class<?>) t : null;
+
+            if (c == null || !(c.isPrimitive() || c.getName().startsWith("java.") || Request.class.isAssignableFrom(c)))
+                Json.mapper().readerFor(Json.mapper().constructType(t)); // reader fetches the root deserializer eagerly
+        }
+    }
+
+    // controller provider is resolved once and kept until DI bindings change
+    protected Object controller() {
+        if (Modifier.isStatic(method.getModifiers()))
+            return null;
+
+        Captured c = captured;
+        final long g = DI.generation();
+
+        if (c == null || c.generation != g) {
+            final Supplier<?> provider = DI.provider(method.getDeclaringClass());
+
+            if (provider == null)
+                return null;
+
+            captured = c = new Captured(g, provider);
+        }
+
+        return c.provider.get();
+    }
+
     protected abstract Supplier<Response> supplyAction(final Request request, final Map<String, String> pathMap);
+
+    private static final class Captured {
+        private final long generation;
+        private final Supplier<?> provider;
+
+        private Captured(final long generation, final Supplier<?> provider) {
+            this.generation = generation;
+            this.provider = provider;
+        }
+    }
 }
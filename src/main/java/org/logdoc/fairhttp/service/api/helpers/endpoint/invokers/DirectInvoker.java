@@ -1,6 +1,5 @@
 package org.logdoc.fairhttp.service.api.helpers.endpoint.invokers;
 
-import org.logdoc.fairhttp.service.DI;
 import org.logdoc.fairhttp.service.http.Request;
 import org.logdoc.fairhttp.service.http.Response;
 
@@ -27,7 +26,7 @@ public class DirectInvoker extends AResolvingInvoker {
 
         return () -> {
             try {
-                return (Response) method.invoke(DI.gain(method.getDeclaringClass()), params);
+                return (Response) method.invoke(controller(), params);
             } catch (final RuntimeException e) {
                 throw e;
             } catch (final Exception e) {
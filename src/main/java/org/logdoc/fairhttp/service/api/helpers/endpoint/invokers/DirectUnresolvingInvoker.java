@@ -1,6 +1,5 @@
 package org.logdoc.fairhttp.service.api.helpers.endpoint.invokers;
 
-import org.logdoc.fairhttp.service.DI;
 import org.logdoc.fairhttp.service.http.Request;
 import org.logdoc.fairhttp.service.http.Response;
 
@@ -23,7 +22,7 @@ public class DirectUnresolvingInvoker extends ARequestInvoker {
     protected Supplier<Response> supplyAction(final Request request, final Map<String, String> pathMap) {
         return () -> {
             try {
-                return (Response) method.invoke(DI.gain(method.getDeclaringClass()));
+                return (Response) method.invoke(controller());
             } catch (final RuntimeException e) {
                 throw e;
             } catch (final Exception e) {
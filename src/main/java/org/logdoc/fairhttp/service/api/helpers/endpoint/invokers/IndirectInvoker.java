@@ -1,6 +1,5 @@
 package org.logdoc.fairhttp.service.api.helpers.endpoint.invokers;
 
-import org.logdoc.fairhttp.service.DI;
 import org.logdoc.fairhttp.service.http.Request;
 import org.logdoc.fairhttp.service.http.Response;
 
@@ -31,7 +30,7 @@ public class IndirectInvoker extends AResolvingInvoker {
 
         return () -> {
             try {
-                return ((CompletionStage<Response>) method.invoke(DI.gain(method.getDeclaringClass()), params)).toCompletableFuture().get(execTimeout, TimeUnit.SECONDS);
+                return ((CompletionStage<Response>) method.invoke(controller(), params)).toCompletableFuture().get(execTimeout, TimeUnit.SECONDS);
             } catch (final RuntimeException e) {
                 throw e;
             } catch (final Exception e) {
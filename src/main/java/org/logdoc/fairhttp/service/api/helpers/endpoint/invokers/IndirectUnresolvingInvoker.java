@@ -1,6 +1,5 @@
 package org.logdoc.fairhttp.service.api.helpers.endpoint.invokers;
 
-import org.logdoc.fairhttp.service.DI;
 import org.logdoc.fairhttp.service.http.Request;
 import org.logdoc.fairhttp.service.http.Response;
 
@@ -26,7 +25,7 @@ public class IndirectUnresolvingInvoker extends ARequestInvoker {
     protected Supplier<Response> supplyAction(final Request request, final Map<String, String> pathMap) {
         return () -> {
             try {
-                return ((CompletionStage<Response>) method.invoke(DI.gain(method.getDeclaringClass()))).toCompletableFuture().get(execTimeout, TimeUnit.SECONDS);
+                return ((CompletionStage<Response>) method.invoke(controller())).toCompletableFuture().get(execTimeout, TimeUnit.SECONDS);
             } catch (final RuntimeException e) {
                 throw e;
             } catch (final Exception e) {
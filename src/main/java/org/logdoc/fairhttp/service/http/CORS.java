@@ -72,7 +72,7 @@ public class CORS {
             return response;
 
         if (multiOrigins)
-            response.header("Vary", "origin"); // multiple origins must be noted
+            response.header(Headers.Vary, isEmpty(response.header(Headers.Vary)) ? "Origin" : response.header(Headers.Vary) + ", Origin"); // multiple origins must be noted
 
         if ((!headers.containsKey(Headers.Auth) && !headers.containsKey(Headers.RequestCookies))
                 || noWilds // no wildcards
@@ -0,0 +1,148 @@
+package org.logdoc.fairhttp.service.http;
+
+import org.logdoc.fairhttp.service.api.helpers.Headers;
+import org.logdoc.helpers.std.MimeType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import static org.logdoc.fairhttp.service.http.RFC.FEED;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 18:25
+ * fair-http-server ☭ sweat and blood
+ *
+ * Response of unknown length: body writer gets a stream which goes to the socket as
+ * `Transfer-Encoding: chunked`, so nothing but the current chunk is held in memory.
+ */
+public final class ChunkedResponse extends Response {
+    private static final int chunk = 16 * 1024;
+    private static final byte[] last = "0\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final Consumer<OutputStream> body;
+
+    public ChunkedResponse(final int code, final String message, final Consumer<OutputStream> body) {
+        super(code, message);
+
+        this.body = body;
+        header(Headers.TransferEncoding, "chunked");
+    }
+
+    public static ChunkedResponse Ok(final Consumer<OutputStream> body) {
+        return new ChunkedResponse(200, "OK", body);
+    }
+
+    @Override
+    public void setPromise(final Consumer<OutputStream> promise) {
+        throw new IllegalStateException("Chunked response body is given at construction");
+    }
+
+    @Override
+    public void setPayload(final byte[] payload, final MimeType contentType) {
+        throw new IllegalStateException("Chunked response body is given at construction");
+    }
+
+    // failed body doesn't get the last chunk, so the client can tell it from a complete one
+    void writeBody(final OutputStream os) throws IOException {
+        final Chunks chunks = new Chunks(os);
+
+        body.accept(chunks);
+        chunks.close();
+    }
+
+    @Override
+    void writeTo(final OutputStream os) throws IOException {
+        final ByteBuffer head = head();
+
+        os.write(head.array(), head.arrayOffset() + head.position(), head.remaining());
+        writeBody(os);
+    }
+
+    @Override
+    byte[] asBytes() throws IOException {
+        try (final ByteArrayOutputStream os = new ByteArrayOutputStream(64 * 1024)) {
+            writeTo(os);
+
+            return os.toByteArray();
+        }
+    }
+
+    // closing ends the body, not the underlying stream
+    private static final class Chunks extends OutputStream {
+        private final OutputStream os;
+        private final byte[] buf;
+        private int count;
+        private boolean closed;
+
+        private Chunks(final OutputStream os) {
+            this.os = os;
+            buf = new byte[chunk];
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            if (count == buf.length)
+                drain();
+
+            buf[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(final byte[] b, int off, int len) throws IOException {
+            if (closed)
+                throw new IOException("Body is already finished");
+
+            while (len > 0) {
+                if (count == 0 && len >= buf.length) { // big piece goes as is
+                    emit(b, off, len);
+                    return;
+                }
+
+                final int n = Math.min(len, buf.length - count);
+                System.arraycopy(b, off, buf, count, n);
+                count += n;
+                off += n;
+                len -= n;
+
+                if (count == buf.length)
+                    drain();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            drain();
+            os.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed)
+                return;
+
+            drain();
+            os.write(last);
+            os.flush();
+            closed = true;
+        }
+
+        private void drain() throws IOException {
+            if (count > 0) {
+                emit(buf, 0, count);
+                count = 0;
+            }
+        }
+
+        private void emit(final byte[] b, final int off, final int len) throws IOException {
+            os.write(Integer.toHexString(len).getBytes(StandardCharsets.US_ASCII));
+            os.write(FEED);
+            os.write(b, off, len);
+            os.write(FEED);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.logdoc.fairhttp.service.http;
+
+import org.logdoc.helpers.std.MimeType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+import static org.logdoc.helpers.Texts.isEmpty;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 17:10
+ * fair-http-server ☭ sweat and blood
+ *
+ * Response with a file region as body. Connection sends it with FileChannel.transferTo straight into the socket channel,
+ * so the content never gets into the heap. Each transfer call is limited to {@link #window} bytes.
+ * Setting a promise or payload replaces the file, then it is sent as an ordinary response.
+ */
+public final class FileResponse extends Response {
+    private static final long window = 1024 * 1024;
+
+    private final Path file;
+    private final long from, length;
+
+    private boolean replaced;
+
+    public FileResponse(final int code, final String message, final Path file, final long from, final long length) {
+        super(code, message);
+
+        this.file = file;
+        this.from = from;
+        this.length = length;
+    }
+
+    public static FileResponse Ok(final Path file, final long size) {
+        return new FileResponse(200, "OK", file, 0, size);
+    }
+
+    @Override
+    public void setPromise(final Consumer<OutputStream> promise) {
+        super.setPromise(promise);
+        replaced |= promise != null;
+    }
+
+    @Override
+    public void setPayload(final byte[] payload, final MimeType contentType) {
+        super.setPayload(payload, contentType);
+        replaced |= !isEmpty(payload);
+    }
+
+    boolean isFile() {
+        return !replaced;
+    }
+
+    void transferTo(final WritableByteChannel target) throws IOException {
+        try (final FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = from, remaining = length, transferred;
+
+            while (remaining > 0) {
+                // Content-Length is already sent, the only honest way out is to break the connection
+                if ((transferred = fc.transferTo(position, Math.min(remaining, window), target)) <= 0)
+                    throw new IOException("File " + file + " ended " + remaining + " bytes short of the announced length");
+
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    @Override
+    void writeTo(final OutputStream os) throws IOException {
+        if (replaced) {
+            super.writeTo(os);
+            return;
+        }
+
+        final ByteBuffer head = head();
+        os.write(head.array(), head.arrayOffset() + head.position(), head.remaining());
+        transferTo(Channels.newChannel(os));
+        os.flush();
+    }
+
+    @Override
+    byte[] asBytes() throws IOException {
+        if (replaced)
+            return super.asBytes();
+
+        try (final ByteArrayOutputStream os = new ByteArrayOutputStream((int) Math.min(64 * 1024, length + 512))) {
+            writeTo(os);
+
+            return os.toByteArray();
+        }
+    }
+}
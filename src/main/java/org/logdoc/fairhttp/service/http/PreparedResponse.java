@@ -0,0 +1,191 @@
+package org.logdoc.fairhttp.service.http;
+
+import org.logdoc.fairhttp.service.api.helpers.Headers;
+import org.logdoc.helpers.std.MimeType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.logdoc.fairhttp.service.http.RFC.FEED;
+import static org.logdoc.helpers.Texts.isEmpty;
+import static org.logdoc.helpers.Texts.notNull;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 22:30
+ * fair-http-server ☭ sweat and blood
+ *
+ * Response made of a pre-encoded head and an immutable (usually direct) body buffer, shared between requests through {@link Template}.
+ * Headers added after preparation (CORS, cookies) and the Date line are encoded per request, so the whole response goes out as one gathering write.
+ * A header which the template already has replaces it: such response gets its whole head encoded anew.
+ */
+public final class PreparedResponse extends Response {
+    private static volatile byte[] dateLine = new byte[0];
+    private static volatile long dateSecond;
+
+    private final Template template;
+    private Map<String, String> extras;
+    private List<Cookie> cookies;
+    private boolean overrides;
+
+    private PreparedResponse(final Template template) {
+        super(template.code, null);
+
+        this.template = template;
+    }
+
+    public static Template prepare(final Response head, final ByteBuffer body) {
+        try (final ByteArrayOutputStream os = new ByteArrayOutputStream(256)) {
+            head.writeStatus(os);
+            head.writeHeaders(os);
+
+            return new Template(head, os.toByteArray(), body.asReadOnlyBuffer());
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void header(final String name, final Object value) {
+        if (isEmpty(name) || isEmpty(value)) return;
+
+        if (extras == null)
+            extras = new LinkedHashMap<>(8);
+
+        extras.put(name.trim(), notNull(value));
+        overrides |= template.head.header(name.trim()) != null;
+    }
+
+    @Override
+    public String header(final String name) {
+        return extras != null && extras.containsKey(name) ? extras.get(name) : template.head.header(name);
+    }
+
+    @Override
+    public Response withCookie(final Cookie... cookies) {
+        if (!isEmpty(cookies)) {
+            if (this.cookies == null)
+                this.cookies = new ArrayList<>(cookies.length);
+
+            for (final Cookie c : cookies)
+                if (c != null) this.cookies.add(c);
+        }
+
+        return this;
+    }
+
+    @Override
+    public void setPromise(final Consumer<OutputStream> promise) {
+        throw new IllegalStateException("Prepared response body is immutable");
+    }
+
+    @Override
+    public void setPayload(final byte[] payload, final MimeType contentType) {
+        throw new IllegalStateException("Prepared response body is immutable");
+    }
+
+    @Override
+    public int size() {
+        return template.body.remaining();
+    }
+
+    ByteBuffer[] buffers() {
+        final byte[] date = dateLine();
+
+        if (extras == null && cookies == null)
+            return new ByteBuffer[]{ByteBuffer.wrap(template.encoded), ByteBuffer.wrap(date), template.body.duplicate()};
+
+        try (final ByteArrayOutputStream os = new ByteArrayOutputStream(date.length + (overrides ? template.encoded.length : 0) + 512)) {
+            if (overrides) {
+                template.head.writeStatus(os);
+                template.head.writeHeaders(os, extras);
+            }
+
+            os.write(date, 0, date.length - FEED.length);
+
+            if (extras != null)
+                for (final Map.Entry<String, String> e : extras.entrySet())
+                    if (!overrides || template.head.header(e.getKey()) == null) {
+                        os.write((e.getKey() + ": " + e.getValue()).getBytes(StandardCharsets.UTF_8));
+                        os.write(FEED);
+                    }
+
+            if (cookies != null)
+                for (final Cookie c : cookies) {
+                    os.write((Headers.ResponseCookies + ": " + c).getBytes(StandardCharsets.UTF_8));
+                    os.write(FEED);
+                }
+
+            os.write(FEED);
+
+            return overrides
+                    ? new ByteBuffer[]{ByteBuffer.wrap(os.toByteArray()), template.body.duplicate()}
+                    : new ByteBuffer[]{ByteBuffer.wrap(template.encoded), ByteBuffer.wrap(os.toByteArray()), template.body.duplicate()};
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    byte[] asBytes() {
+        final ByteBuffer[] buffers = buffers();
+        int total = 0;
+        for (final ByteBuffer b : buffers)
+            total += b.remaining();
+
+        final ByteBuffer all = ByteBuffer.allocate(total);
+        for (final ByteBuffer b : buffers)
+            all.put(b);
+
+        return all.array();
+    }
+
+    // "Date: ...\r\n\r\n", refreshed once a second
+    private static byte[] dateLine() {
+        final long now = System.currentTimeMillis() / 1000L;
+
+        if (now != dateSecond) {
+            dateLine = ("Date: " + DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochSecond(now).atOffset(ZoneOffset.UTC)) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+            dateSecond = now;
+        }
+
+        return dateLine;
+    }
+
+    public static final class Template {
+        private final int code;
+        private final Response head;
+        private final byte[] encoded;
+        private final ByteBuffer body;
+
+        private Template(final Response head, final byte[] encoded, final ByteBuffer body) {
+            this.code = head.getCode();
+            this.head = head;
+            this.encoded = encoded;
+            this.body = body;
+        }
+
+        public PreparedResponse response() {
+            return new PreparedResponse(this);
+        }
+
+        public String header(final String name) {
+            return head.header(name);
+        }
+
+        public long weight() {
+            return encoded.length + body.capacity();
+        }
+    }
+}
@@ -9,8 +9,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
@@ -120,6 +125,21 @@ final class RCWrap implements ResourceConnect {
             return;
         }
 
+        if (response instanceof PreparedResponse) {
+            write(((PreparedResponse) response).buffers());
+            return;
+        }
+
+        if (response instanceof FileResponse && ((FileResponse) response).isFile()) {
+            write((FileResponse) response);
+            return;
+        }
+
+        if (response instanceof ChunkedResponse) {
+            write((ChunkedResponse) response);
+            return;
+        }
+
         try {
             write(response.asBytes());
         } catch (final IOException e) {
@@ -143,6 +163,87 @@ final class RCWrap implements ResourceConnect {
         }
     }
 
+    private void write(final ByteBuffer[] data) {
+        try {
+            final SocketChannel channel = socket.getChannel();
+
+            if (channel != null && channel.isBlocking()) {
+                long left = 0;
+                for (final ByteBuffer b : data)
+                    left += b.remaining();
+
+                while (left > 0)
+                    left -= channel.write(data);
+            } else {
+                final OutputStream os = socket.getOutputStream();
+                byte[] chunk = null;
+
+                for (final ByteBuffer b : data)
+                    if (b.hasArray())
+                        os.write(b.array(), b.arrayOffset() + b.position(), b.remaining());
+                    else {
+                        if (chunk == null)
+                            chunk = new byte[Math.min(b.remaining(), 64 * 1024)];
+
+                        while (b.hasRemaining()) {
+                            final int len = Math.min(chunk.length, b.remaining());
+                            b.get(chunk, 0, len);
+                            os.write(chunk, 0, len);
+                        }
+                    }
+
+                os.flush();
+            }
+        } catch (final SocketException ignore) {
+        } catch (final Exception e) {
+            logger.error(e.getMessage(), e);
+        } finally {
+            seppukku();
+        }
+    }
+
+    private void write(final FileResponse response) {
+        try {
+            final ByteBuffer head = response.head();
+            final SocketChannel channel = socket.getChannel();
+
+            if (channel != null && channel.isBlocking()) {
+                while (head.hasRemaining())
+                    channel.write(head);
+
+                response.transferTo(channel);
+            } else {
+                final OutputStream os = socket.getOutputStream();
+                os.write(head.array(), head.arrayOffset() + head.position(), head.remaining());
+                response.transferTo(Channels.newChannel(os));
+                os.flush();
+            }
+        } catch (final SocketException ignore) {
+        } catch (final Exception e) {
+            logger.error(e.getMessage(), e);
+        } finally {
+            seppukku();
+        }
+    }
+
+    private void write(final ChunkedResponse response) {
+        try {
+            final ByteBuffer head = response.head();
+            final OutputStream os = socket.getOutputStream();
+
+            os.write(head.array(), head.arrayOffset() + head.position(), head.remaining());
+            response.writeBody(os);
+        } catch (final SocketException ignore) {
+        } catch (final UncheckedIOException e) {
+            if (!(e.getCause() instanceof SocketException))
+                logger.error(e.getMessage(), e);
+        } catch (final Exception e) {
+            logger.error(e.getMessage(), e);
+        } finally {
+            seppukku();
+        }
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) return true;
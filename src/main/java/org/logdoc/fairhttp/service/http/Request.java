@@ -2,6 +2,7 @@ package org.logdoc.fairhttp.service.http;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import org.logdoc.fairhttp.errors.BodyReadError;
+import org.logdoc.fairhttp.service.DI;
 import org.logdoc.fairhttp.service.api.helpers.Headers;
 import org.logdoc.fairhttp.service.tools.*;
 import org.logdoc.fairhttp.service.tools.websocket.extension.IExtension;
@@ -18,10 +19,8 @@ import java.net.SocketAddress;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.InflaterInputStream;
@@ -53,6 +52,10 @@ public class Request extends MapAttributed {
     private JsonNode bj;
     private Form bf;
     private MultiForm bm;
+    private Map<Class<?>, Object> scope;
+    private List<Runnable> completions;
+    private CompletableFuture<?> handler;
+    private boolean completed;
 
     Request(final RequestId id, final Map<String, String> headers, final Socket socket, final int maxRequestSize) {
         this.id = id;
@@ -390,4 +393,77 @@ public class Request extends MapAttributed {
     public Map<String, String> getHeaders() {
         return new HashMap<>(headers);
     }
+
+    // the same instance for the whole request, see RequestScoped and Pooled
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T scoped(final Class<T> klass) {
+        if (completed)
+            throw new IllegalStateException("Request is already completed");
+
+        if (scope == null)
+            scope = new HashMap<>(4);
+
+        Object o = scope.get(klass);
+
+        if (o == null && (o = DI.scoped(klass)) != null)
+            scope.put(klass, o);
+
+        return (T) o;
+    }
+
+    // runs when the response is written (or failed to)
+    public synchronized void onComplete(final Runnable task) {
+        if (task == null)
+            return;
+
+        if (completed) {
+            task.run();
+            return;
+        }
+
+        if (completions == null)
+            completions = new ArrayList<>(2);
+
+        completions.add(task);
+    }
+
+    // handler runs on its own thread: scoped objects are in its hands until it finishes, even if the response is already sent
+    public synchronized void handledBy(final CompletableFuture<?> handler) {
+        this.handler = handler;
+    }
+
+    void complete() {
+        final Map<Class<?>, Object> s;
+        final List<Runnable> r;
+        final CompletableFuture<?> h;
+
+        synchronized (this) {
+            if (completed)
+                return;
+
+            completed = true;
+            s = scope;
+            r = completions;
+            h = handler;
+            scope = null;
+            completions = null;
+            handler = null;
+        }
+
+        if (r != null)
+            for (final Runnable task : r)
+                try {
+                    task.run();
+                } catch (final Exception e) {
+                    logger.warn("Request completion task failed :: " + e.getMessage(), e);
+                }
+
+        if (s == null)
+            return;
+
+        if (h == null || (h.isDone() && !h.isCancelled()))
+            s.forEach(DI::release);
+        else // abandoned (timed out or cancelled) handler may still be using them, so they never go back to the pool
+            h.whenComplete((v, e) -> s.forEach(DI::discard));
+    }
 }
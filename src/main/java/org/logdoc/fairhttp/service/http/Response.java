@@ -8,10 +8,12 @@ import org.logdoc.helpers.std.MimeType;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -122,26 +124,15 @@ public class Response extends MapAttributed {
 
     byte[] asBytes() throws IOException {
         try (final ByteArrayOutputStream os = new ByteArrayOutputStream(64 * 1024)) {
-            os.write(PROTO);
-            os.write((" " + code + (isEmpty(message) ? "" : " " + message)).getBytes(StandardCharsets.US_ASCII));
-            os.write(FEED);
+            writeStatus(os);
 
             if (promise != null && PhasedConsumer.class.isAssignableFrom(promise.getClass())) ((PhasedConsumer<OutputStream>) promise).warmUp(os);
 
-            if (isEmpty(payload) && promise == null && !(this instanceof WebSocket)) header(Headers.ContentLength, 0);
+            if (isEmpty(payload) && promise == null && !(this instanceof WebSocket) && code != 304 && code != 204) header(Headers.ContentLength, 0);
 
             header("Date", LocalDateTime.now().atOffset(ZoneOffset.UTC).format(DateTimeFormatter.RFC_1123_DATE_TIME));
 
-            for (final Map.Entry<String, String> e : headers.entrySet())
-                if (!isEmpty(e.getValue()) && !isEmpty(e.getKey())) {
-                    os.write((e.getKey() + ": " + e.getValue()).getBytes(StandardCharsets.UTF_8));
-                    os.write(FEED);
-                }
-
-            for (final Cookie c : cookies) {
-                os.write((Headers.ResponseCookies + ": " + c).getBytes(StandardCharsets.UTF_8));
-                os.write(FEED);
-            }
+            writeHeaders(os);
 
             os.write(FEED);
 
@@ -154,6 +145,47 @@ public class Response extends MapAttributed {
         }
     }
 
+    // whole response into the stream, bodies that may be big override it to avoid the heap copy
+    void writeTo(final OutputStream os) throws IOException {
+        os.write(asBytes());
+    }
+
+    // status line and headers with the Date, for bodies sent separately
+    ByteBuffer head() throws IOException {
+        try (final ByteArrayOutputStream os = new ByteArrayOutputStream(512)) {
+            writeStatus(os);
+            header("Date", LocalDateTime.now().atOffset(ZoneOffset.UTC).format(DateTimeFormatter.RFC_1123_DATE_TIME));
+            writeHeaders(os);
+            os.write(FEED);
+
+            return ByteBuffer.wrap(os.toByteArray());
+        }
+    }
+
+    void writeStatus(final OutputStream os) throws IOException {
+        os.write(PROTO);
+        os.write((" " + code + (isEmpty(message) ? "" : " " + message)).getBytes(StandardCharsets.US_ASCII));
+        os.write(FEED);
+    }
+
+    void writeHeaders(final OutputStream os) throws IOException {
+        writeHeaders(os, Collections.emptyMap());
+    }
+
+    // values of overrides replace headers of the same name
+    void writeHeaders(final OutputStream os, final Map<String, String> overrides) throws IOException {
+        for (final Map.Entry<String, String> e : headers.entrySet())
+            if (!isEmpty(e.getValue()) && !isEmpty(e.getKey())) {
+                os.write((e.getKey() + ": " + overrides.getOrDefault(e.getKey(), e.getValue())).getBytes(StandardCharsets.UTF_8));
+                os.write(FEED);
+            }
+
+        for (final Cookie c : cookies) {
+            os.write((Headers.ResponseCookies + ": " + c).getBytes(StandardCharsets.UTF_8));
+            os.write(FEED);
+        }
+    }
+
     @Override
     public String toString() {
         return code + (isEmpty(message) ? "" : " " + message) + (payload == null ? "" : " :: " + payload.length + " bytes");
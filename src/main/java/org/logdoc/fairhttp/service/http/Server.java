@@ -6,16 +6,23 @@ import org.logdoc.fairhttp.service.api.helpers.endpoint.Route;
 import org.logdoc.fairhttp.service.api.helpers.endpoint.Signature;
 import org.logdoc.fairhttp.service.api.helpers.endpoint.invokers.*;
 import org.logdoc.fairhttp.service.http.statics.AssetsRead;
+import org.logdoc.fairhttp.service.http.statics.CacheStats;
 import org.logdoc.fairhttp.service.http.statics.NoStatics;
 import org.logdoc.fairhttp.service.tools.ConfigTools;
+import org.logdoc.fairhttp.service.tools.Json;
+import org.logdoc.fairhttp.service.tools.Metrics;
 import org.logdoc.fairhttp.service.tools.ResourceConnect;
+import org.logdoc.fairhttp.service.tools.SqlScope;
 import org.logdoc.helpers.gears.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.Inet4Address;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.function.Function;
@@ -24,6 +31,7 @@ import java.util.stream.Collectors;
 import static org.logdoc.helpers.Digits.getInt;
 import static org.logdoc.helpers.Texts.isEmpty;
 import static org.logdoc.helpers.Texts.notNull;
+import static org.logdoc.helpers.std.MimeTypes.JSON;
 
 /**
  * @author Denis Danilin | me@loslobos.ru
@@ -32,6 +40,9 @@ import static org.logdoc.helpers.Texts.notNull;
  */
 public class Server implements RCBackup {
     private static final Logger logger = LoggerFactory.getLogger(Server.class);
+    // before JDK 13 both streams of a channel socket adaptor lock the same monitor, so a websocket parked in read
+    // would block every send to it. There connections are plain sockets and gathering/transferTo writes fall back to streams
+    private static final boolean channelSockets = Runtime.version().feature() >= 13;
     private final SortedSet<Route> routes;
     private final int port, maxRequestBytes;
     private final int readTimeoutMs, execTimeoutSeconds;
@@ -41,6 +52,9 @@ public class Server implements RCBackup {
     private final ExecutorService executorService;
 
     private Function<Throwable, Response> errorHandler;
+    private WarmUp warmup;
+    private String livePath, readyPath, metricsPath;
+    private volatile boolean ready = true;
 
     public Server(final int port, final int maxRequestBytes, final int readTimeoutMs, final int execTimeoutSeconds, final CORS cors, final AssetsRead assets) {
         executorService = new ThreadPoolExecutor(
@@ -81,6 +95,21 @@ public class Server implements RCBackup {
                 AssetsRead.ofConfig(ConfigTools.sureConf(config, "fair.http.statics"))
         );
 
+        ARequestInvoker.configure(ConfigTools.sureConf(config, "fair.http"));
+        WSHub.configure(ConfigTools.sureConf(config, "fair.http.websocket"));
+        warmup = WarmUp.ofConfig(ConfigTools.sureConf(config, "fair.warmup"));
+        SqlScope.configure(ConfigTools.sureConf(config, "fair.sql_session"));
+
+        final Config health = ConfigTools.sureConf(config, "fair.http.health");
+        if (health != null) {
+            livePath = ConfigTools.sureNN(health, "live") ? health.getString("live") : null;
+            readyPath = ConfigTools.sureNN(health, "ready") ? health.getString("ready") : null;
+            metricsPath = ConfigTools.sureNN(health, "metrics") ? health.getString("metrics") : null;
+        }
+
+        Metrics.register("http.statics.cache", this::staticsCacheStats);
+        Metrics.register("http.statics.misses", this::staticsMissStats);
+
         if (config.hasPath("fair.http"))
             try {
                 config.getConfig("fair.http").root().unwrapped()
@@ -117,13 +146,26 @@ public class Server implements RCBackup {
 
     public void start() {
         new Thread(() -> {
-            try (final ServerSocket socket = new ServerSocket(port)) {
-                logger.info("Listen at:\thttp://" + Inet4Address.getLocalHost().getHostAddress() + ":" + socket.getLocalPort());
+            try {
+                if (channelSockets)
+                    try (final ServerSocketChannel socket = ServerSocketChannel.open()) {
+                        socket.bind(new InetSocketAddress(port));
+                        logger.info("Listen at:\thttp://" + Inet4Address.getLocalHost().getHostAddress() + ":" + socket.socket().getLocalPort());
+
+                        SocketChannel child;
 
-                Socket child;
+                        while ((child = socket.accept()) != null)
+                            new RCWrap(child.socket(), maxRequestBytes, readTimeoutMs, this);
+                    }
+                else
+                    try (final ServerSocket socket = new ServerSocket(port)) {
+                        logger.info("Listen at:\thttp://" + Inet4Address.getLocalHost().getHostAddress() + ":" + socket.getLocalPort());
+
+                        Socket child;
 
-                while ((child = socket.accept()) != null)
-                    new RCWrap(child, maxRequestBytes, readTimeoutMs, this);
+                        while ((child = socket.accept()) != null)
+                            new RCWrap(child, maxRequestBytes, readTimeoutMs, this);
+                    }
             } catch (final Exception e) {
                 logger.error(e.getMessage(), e);
                 System.exit(-1);
@@ -138,8 +180,59 @@ public class Server implements RCBackup {
         }.start();
     }
 
+    // route controllers and their argument deserializers are built, configured synthetic requests are replayed
+    public void warmUp() {
+        final long started = System.currentTimeMillis();
+        routes.forEach(r -> {
+            try {
+                r.warmUp();
+            } catch (final Exception e) {
+                logger.warn("Cant warm up endpoint " + r + " :: " + e.getMessage());
+            }
+        });
+
+        if (warmup != null)
+            warmup.replay(this);
+
+        logger.info("Warm-up took " + (System.currentTimeMillis() - started) + " ms");
+    }
+
+    public boolean warmsUp() {
+        return warmup != null;
+    }
+
+    // readiness for the traffic, liveness is the listener itself
+    public void ready(final boolean ready) {
+        this.ready = ready;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    private Response health(final String path) {
+        if (path.equals(livePath))
+            return Response.Ok();
+
+        if (path.equals(metricsPath))
+            try {
+                final Response response = Response.Ok();
+                response.setPayload(Json.mapper().writeValueAsBytes(Metrics.snapshot()), JSON);
+
+                return response;
+            } catch (final Exception e) {
+                logger.error("Cant render metrics :: " + e.getMessage(), e);
+                return Response.ServerError();
+            }
+
+        return ready ? Response.Ok() : new Response(503, "Service Unavailable");
+    }
+
     @Override
     public boolean canProcess(final RequestId id) {
+        if (id.path.equals(livePath) || id.path.equals(readyPath) || id.path.equals(metricsPath))
+            return true;
+
         final Iterator<Route> i = routes.iterator();
         Pair<Boolean, Boolean> reply;
 
@@ -172,17 +265,23 @@ public class Server implements RCBackup {
     }
 
     public void handleRequest0(final RequestId id, final Map<String, String> headers, final ResourceConnect rc, final boolean mayBeMapped) {
+        if (id.path.equals(livePath) || id.path.equals(readyPath) || id.path.equals(metricsPath)) {
+            writeResponse(health(id.path), rc);
+            return;
+        }
+
         final Iterator<Route> i = routes.iterator();
         Pair<Boolean, Boolean> match;
 
         Response mappableResponse = null;
+        Request request = null;
         Route e;
 
         while (i.hasNext()) {
             match = (e = i.next()).match(id.method, id.path);
 
             if (match.first && match.second) {
-                mappableResponse = e.call(new Request(id, headers, rc.getInput(), maxRequestBytes));
+                mappableResponse = e.call(request = new Request(id, headers, rc.getInput(), maxRequestBytes));
                 break;
             }
 
@@ -194,22 +293,32 @@ public class Server implements RCBackup {
 
         if (mappableResponse == null) {
             if (id.method.equals("GET"))
-                mappableResponse = assets.apply(id.path);
+                mappableResponse = assets.apply(id, headers);
 
             if (mappableResponse == null)
                 mappableResponse = Response.NotFound();
         }
 
         if (mayBeMapped && maps.containsKey(mappableResponse.getCode())) {
+            if (request != null)
+                request.complete();
+
             handleRequest0(new RequestId(id.method, maps.get(mappableResponse.getCode())), headers, rc, false);
             return;
         }
 
-        writeResponse(cors.wrap(headers, mappableResponse), rc);
+        writeResponse(cors.wrap(headers, mappableResponse), rc, request);
     }
 
     private void writeResponse(final Response response, final ResourceConnect rc) {
-        CompletableFuture.runAsync(() -> rc.write(response));
+        writeResponse(response, rc, null);
+    }
+
+    private void writeResponse(final Response response, final ResourceConnect rc, final Request request) {
+        final CompletableFuture<Void> written = CompletableFuture.runAsync(() -> rc.write(response));
+
+        if (request != null)
+            written.whenComplete((v, t) -> request.complete());
     }
 
     public void addEndpoints(final Collection<Endpoint> endpoints) {
@@ -254,7 +363,7 @@ public class Server implements RCBackup {
                 endpoint.indirect
                         ? (req, pathMap) -> {
                     try {
-                        return CompletableFuture.supplyAsync(() -> {
+                        final CompletableFuture<Response> handler = CompletableFuture.supplyAsync(SqlScope.perRequest(req.method(), () -> {
                                     if (endpoint.shouldBreak(req, pathMap))
                                         return endpoint.breakWithResponse;
 
@@ -263,7 +372,10 @@ public class Server implements RCBackup {
                                     } catch (final InterruptedException | ExecutionException | TimeoutException e) {
                                         throw new RuntimeException(e);
                                     }
-                                })
+                                }), ARequestInvoker.handlers());
+                        req.handledBy(handler);
+
+                        return handler
                                 .exceptionally(e -> {
                                     if (e instanceof RuntimeException)
                                         throw (RuntimeException) e;
@@ -271,18 +383,23 @@ public class Server implements RCBackup {
                                     throw new RuntimeException(e);
                                 })
                                 .get(execTimeoutSeconds, TimeUnit.SECONDS);
+                    } catch (final RejectedExecutionException ex) {
+                        return ARequestInvoker.overloaded();
                     } catch (final Exception ex) {
                         return errorHandler.apply(ex);
                     }
                 }
                         : (req, pathMap) -> {
                     try {
-                        return CompletableFuture.supplyAsync(() -> {
+                        final CompletableFuture<Response> handler = CompletableFuture.supplyAsync(SqlScope.perRequest(req.method(), () -> {
                                     if (endpoint.shouldBreak(req, pathMap))
                                         return endpoint.breakWithResponse;
 
                                     return ((Response) endpoint.callback.apply(req, pathMap));
-                                })
+                                }), ARequestInvoker.handlers());
+                        req.handledBy(handler);
+
+                        return handler
                                 .exceptionally(e -> {
                                     if (e instanceof RuntimeException)
                                         throw (RuntimeException) e;
@@ -290,6 +407,8 @@ public class Server implements RCBackup {
                                     throw new RuntimeException(e);
                                 })
                                 .get(execTimeoutSeconds, TimeUnit.SECONDS);
+                    } catch (final RejectedExecutionException ex) {
+                        return ARequestInvoker.overloaded();
                     } catch (final Exception ex) {
                         return errorHandler.apply(ex);
                     }
@@ -302,6 +421,14 @@ public class Server implements RCBackup {
             this.errorHandler = errorHandler;
     }
 
+    public CacheStats staticsCacheStats() {
+        return assets.cacheStats();
+    }
+
+    public CacheStats staticsMissStats() {
+        return assets.missCacheStats();
+    }
+
     public Response errorAsResponse(final String error) {
         return errorHandler.apply(new Throwable(error));
     }
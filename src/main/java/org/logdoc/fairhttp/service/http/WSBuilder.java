@@ -5,6 +5,7 @@ import org.logdoc.fairhttp.service.tools.websocket.extension.DefaultExtension;
 import org.logdoc.fairhttp.service.tools.websocket.extension.IExtension;
 import org.logdoc.fairhttp.service.tools.websocket.protocol.IProtocol;
 
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.util.Base64;
 import java.util.function.Consumer;
@@ -18,21 +19,26 @@ import static org.logdoc.fairhttp.service.tools.websocket.protocol.IProtocol.RFC
  * fair-http-server ☭ sweat and blood
  */
 public class WSBuilder {
+    public static final long DEFAULT_MAX_MESSAGE_SIZE = 16L * 1024 * 1024;
+
     private final Request request;
     private IExtension extension;
     private IProtocol protocol;
     private Consumer<WebSocket.ErrorRef> readErrorHandler, writeErrorHandler;
     private Consumer<String> textHandler;
+    private Consumer<ByteBuffer> textBufferHandler;
     private Consumer<byte[]> binaryHandler;
     private Consumer<WebSocket> pingHandler, pongHandler;
     private Consumer<WebSocket.CloseReason> closeHandler;
+    private Consumer<WebSocket.Fragment> fragmentHandler;
     private boolean readEnabled, writeEnabled;
-    private long readTimeoutMs;
+    private long readTimeoutMs, maxMessageSize;
 
     private WSBuilder(final Request request) {
         this.request = request;
         readEnabled = writeEnabled = true;
-        readTimeoutMs = 300000L;
+        readTimeoutMs = -1;
+        maxMessageSize = DEFAULT_MAX_MESSAGE_SIZE;
     }
 
     public static WSBuilder from(final Request request) {
@@ -87,12 +93,50 @@ public class WSBuilder {
         return this;
     }
 
+    /**
+     * Text messages handler, which receives already validated UTF-8 bytes wrapped into array-backed buffer, no String is created for it.
+     * Buffer is not reused by the socket, so it can be passed directly to byte-oriented parsers (e.g. Jackson).
+     * May be combined with regular text handler.
+     *
+     * @param textBufferHandler UTF-8 buffers consumer
+     * @return builder itself
+     */
+    public WSBuilder withTextBufferHandler(final Consumer<ByteBuffer> textBufferHandler) {
+        this.textBufferHandler = textBufferHandler;
+
+        return this;
+    }
+
     public WSBuilder withBinaryHandler(final Consumer<byte[]> binaryHandler) {
         this.binaryHandler = binaryHandler;
 
         return this;
     }
 
+    /**
+     * Switches socket to streaming mode: every data message is delivered as a sequence of fragments, as they come from the wire,
+     * without assembling the whole message in memory. Text and binary handlers are not called in this mode.
+     * Note that text fragments may split multibyte UTF-8 sequences.
+     *
+     * @param fragmentHandler fragments consumer
+     * @return builder itself
+     */
+    public WSBuilder withFragmentHandler(final Consumer<WebSocket.Fragment> fragmentHandler) {
+        this.fragmentHandler = fragmentHandler;
+
+        return this;
+    }
+
+    /**
+     * @param maxMessageSize maximum size of a single (possibly fragmented) incoming message in bytes, socket is closed with 1009 code if exceeded. Defaults to {@link #DEFAULT_MAX_MESSAGE_SIZE}, zero or less means unlimited
+     * @return builder itself
+     */
+    public WSBuilder withMaxMessageSize(final long maxMessageSize) {
+        this.maxMessageSize = maxMessageSize;
+
+        return this;
+    }
+
     public <T> WSBuilder withTextAutoMapping(final Consumer<T> handler, final Function<String, T> mappingFunction) {
         if (handler != null && mappingFunction != null)
             this.textHandler = s -> handler.accept(mappingFunction.apply(s));
@@ -150,7 +194,6 @@ public class WSBuilder {
     }
 
     private WebSocket getWebSocket() {
-        final Consumer<String> txter = textHandler == null ? s -> {} : textHandler;
         final Consumer<byte[]> biner = binaryHandler == null ? bytes -> {} : binaryHandler;
         final Consumer<WebSocket> pinger = pingHandler == null ? unused -> {} : pingHandler;
         final Consumer<WebSocket> ponger = pongHandler == null ? unused -> {} : pongHandler;
@@ -159,16 +202,19 @@ public class WSBuilder {
         final Consumer<WebSocket.ErrorRef> writer = writeErrorHandler == null ? eh -> {} : writeErrorHandler;
 
         return new WebSocket(extension == null ? new DefaultExtension() : extension,
-                txter,
+                textHandler,
+                textBufferHandler,
                 biner,
                 pinger,
                 ponger,
                 closer,
+                fragmentHandler,
                 reader,
                 writer,
                 readEnabled,
                 writeEnabled,
-                readTimeoutMs
+                readTimeoutMs >= 0 ? readTimeoutMs : WSHub.isKeepingAlive() ? 0 : 300000L,
+                maxMessageSize
         );
     }
 }
@@ -0,0 +1,126 @@
+package org.logdoc.fairhttp.service.http;
+
+import com.typesafe.config.Config;
+import org.logdoc.fairhttp.service.tools.websocket.frames.CloseFrame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.logdoc.fairhttp.service.tools.ConfigTools.sureNN;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 12:10
+ * fair-http-server ☭ sweat and blood
+ *
+ * Keepalive of websockets. The sweep itself never writes to sockets: pings go to a pool and are skipped while a socket
+ * is busy writing, idle sockets are dropped without a close frame - a peer which doesn't read could block any write forever.
+ */
+public final class WSHub {
+    private static final Logger logger = LoggerFactory.getLogger(WSHub.class);
+    private static final String pingPrm = "ping_interval", idlePrm = "idle_timeout";
+
+    private static final Set<WebSocket> live = ConcurrentHashMap.newKeySet();
+
+    private static volatile long pingIntervalMs, idleTimeoutMs;
+    private static ScheduledExecutorService ses;
+    private static ExecutorService pings;
+
+    private WSHub() {
+    }
+
+    static synchronized void configure(final Config config) {
+        if (ses != null) {
+            ses.shutdownNow();
+            ses = null;
+        }
+
+        if (pings != null) {
+            pings.shutdownNow();
+            pings = null;
+        }
+
+        pingIntervalMs = idleTimeoutMs = 0;
+
+        if (config == null)
+            return;
+
+        if (sureNN(config, pingPrm))
+            pingIntervalMs = config.getDuration(pingPrm, TimeUnit.MILLISECONDS);
+
+        if (sureNN(config, idlePrm))
+            idleTimeoutMs = config.getDuration(idlePrm, TimeUnit.MILLISECONDS);
+
+        if (pingIntervalMs <= 0 && idleTimeoutMs <= 0) {
+            logger.info("Websockets keepalive is disabled");
+            return;
+        }
+
+        final long period = Math.max(1000L, Math.min(pingIntervalMs > 0 ? pingIntervalMs : Long.MAX_VALUE, idleTimeoutMs > 0 ? idleTimeoutMs : Long.MAX_VALUE) / 2);
+
+        ses = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread t = new Thread(r, "FairWSHub");
+            t.setDaemon(true);
+            return t;
+        });
+        // a ping blocked on a stuck peer holds its thread only until the socket is reaped as idle
+        pings = Executors.newCachedThreadPool(r -> {
+            final Thread t = new Thread(r, "FairWSPing");
+            t.setDaemon(true);
+            return t;
+        });
+        ses.scheduleWithFixedDelay(WSHub::sweep, period, period, TimeUnit.MILLISECONDS);
+
+        logger.info("Websockets keepalive: ping interval " + pingIntervalMs + " ms, idle timeout " + idleTimeoutMs + " ms, sweep every " + period + " ms");
+    }
+
+    static boolean isKeepingAlive() {
+        return idleTimeoutMs > 0;
+    }
+
+    static void register(final WebSocket ws) {
+        live.add(ws);
+    }
+
+    static void unregister(final WebSocket ws) {
+        live.remove(ws);
+    }
+
+    public static int liveCount() {
+        return live.size();
+    }
+
+    private static void sweep() {
+        try {
+            final long now = System.currentTimeMillis();
+            final List<WebSocket> dead = new ArrayList<>(0);
+
+            for (final WebSocket ws : live) {
+                if (!ws.isReadable())
+                    continue;
+
+                final long idle = now - ws.lastSeen();
+
+                if (idleTimeoutMs > 0 && idle > idleTimeoutMs)
+                    dead.add(ws);
+                else if (pingIntervalMs > 0 && idle >= pingIntervalMs && now - ws.pinged >= pingIntervalMs) {
+                    ws.pinged = now;
+                    pings.execute(ws::tryPing);
+                }
+            }
+
+            if (!dead.isEmpty()) {
+                logger.debug("Closing " + dead.size() + " idle websocket(s)");
+
+                for (final WebSocket ws : dead)
+                    ws.abort(CloseFrame.GOING_AWAY, "Idle timeout");
+            }
+        } catch (final Exception e) {
+            logger.error("Websockets sweep failed: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.logdoc.fairhttp.service.http;
+
+import com.typesafe.config.Config;
+import org.logdoc.fairhttp.service.api.helpers.Headers;
+import org.logdoc.fairhttp.service.tools.ResourceConnect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.logdoc.fairhttp.service.tools.ConfigTools.sureConf;
+import static org.logdoc.fairhttp.service.tools.ConfigTools.sureNN;
+import static org.logdoc.helpers.Texts.isEmpty;
+import static org.logdoc.helpers.Texts.notNull;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 20:15
+ * fair-http-server ☭ sweat and blood
+ *
+ * Synthetic requests replayed through the whole server pipeline (routing, resolvers, handlers, statics, response encoding)
+ * before real traffic comes. No sockets involved: request body is served from memory, response is encoded and dropped.
+ */
+final class WarmUp {
+    private static final Logger logger = LoggerFactory.getLogger(WarmUp.class);
+
+    private final List<Shot> shots;
+    private final int rounds;
+    private final long timeoutMs;
+
+    private WarmUp(final List<Shot> shots, final int rounds, final long timeoutMs) {
+        this.shots = shots;
+        this.rounds = rounds;
+        this.timeoutMs = timeoutMs;
+    }
+
+    static WarmUp ofConfig(final Config cfg) {
+        if (cfg == null || !cfg.hasPath("enabled") || !cfg.getBoolean("enabled"))
+            return null;
+
+        final List<Shot> shots = new ArrayList<>(8);
+
+        if (sureNN(cfg, "requests"))
+            for (final Config rc : cfg.getConfigList("requests"))
+                try {
+                    final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                    final Config hc = sureConf(rc, "headers");
+                    if (hc != null)
+                        hc.root().unwrapped().forEach((k, v) -> headers.put(k, notNull(v)));
+
+                    final byte[] body = sureNN(rc, "body") ? rc.getString("body").getBytes(StandardCharsets.UTF_8) : new byte[0];
+                    if (body.length > 0)
+                        headers.put(Headers.ContentLength, String.valueOf(body.length));
+
+                    shots.add(new Shot(sureNN(rc, "method") ? rc.getString("method").trim().toUpperCase() : "GET", rc.getString("path"), Collections.unmodifiableMap(headers), body));
+                } catch (final Exception e) {
+                    logger.error("Cant parse warm-up request " + rc + " :: " + e.getMessage(), e);
+                }
+
+        return new WarmUp(shots,
+                sureNN(cfg, "rounds") ? Math.max(1, cfg.getInt("rounds")) : 3,
+                sureNN(cfg, "timeout") ? cfg.getDuration("timeout", TimeUnit.MILLISECONDS) : 30000);
+    }
+
+    void replay(final Server server) {
+        if (shots.isEmpty())
+            return;
+
+        final long[] first = new long[shots.size()], last = new long[shots.size()];
+        final int[] codes = new int[shots.size()];
+
+        for (int r = 0; r < rounds; r++)
+            for (int i = 0; i < shots.size(); i++) {
+                final Shot shot = shots.get(i);
+                final Connect connect = new Connect(shot.body);
+                final long started = System.nanoTime();
+
+                try {
+                    server.handleRequest0(new RequestId(shot.method, shot.path), shot.headers, connect, true);
+                    codes[i] = connect.done.get(timeoutMs, TimeUnit.MILLISECONDS);
+                } catch (final Exception e) {
+                    codes[i] = -1;
+                    logger.warn("Warm-up request " + shot + " failed :: " + e.getMessage());
+                }
+
+                last[i] = System.nanoTime() - started;
+                if (r == 0)
+                    first[i] = last[i];
+            }
+
+        for (int i = 0; i < shots.size(); i++)
+            logger.info("Warm-up " + shots.get(i) + " -> " + codes[i] + ", first: " + TimeUnit.NANOSECONDS.toMillis(first[i]) + " ms, last: " + TimeUnit.NANOSECONDS.toMicros(last[i]) + " us");
+    }
+
+    private static final class Shot {
+        private final String method, path;
+        private final Map<String, String> headers;
+        private final byte[] body;
+
+        private Shot(final String method, final String path, final Map<String, String> headers, final byte[] body) {
+            this.method = method;
+            this.path = path;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        @Override
+        public String toString() {
+            return method + " " + path;
+        }
+    }
+
+    private static final class Connect implements ResourceConnect {
+        private final CompletableFuture<Integer> done = new CompletableFuture<>();
+        private final Socket socket;
+
+        private Connect(final byte[] body) {
+            socket = new Socket() {
+                private final InputStream is = new ByteArrayInputStream(body);
+
+                @Override
+                public InputStream getInputStream() {
+                    return is;
+                }
+
+                @Override
+                public OutputStream getOutputStream() {
+                    return OutputStream.nullOutputStream();
+                }
+            };
+        }
+
+        @Override
+        public void write(final byte[] data) {
+            done.complete(isEmpty(data) ? 0 : 200);
+        }
+
+        @Override
+        public void write(final Response response) {
+            try {
+                if (response != null && !(response instanceof WebSocket))
+                    response.writeTo(OutputStream.nullOutputStream());
+
+                done.complete(response == null ? 0 : response.getCode());
+            } catch (final Exception e) {
+                done.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public Socket getInput() {
+            return socket;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.logdoc.fairhttp.service.http;
 
 import org.logdoc.fairhttp.service.api.helpers.Headers;
 import org.logdoc.fairhttp.service.tools.websocket.Opcode;
+import org.logdoc.fairhttp.service.tools.websocket.Utf8;
 import org.logdoc.fairhttp.service.tools.websocket.extension.DefaultExtension;
 import org.logdoc.fairhttp.service.tools.websocket.extension.IExtension;
 import org.logdoc.fairhttp.service.tools.websocket.frames.*;
@@ -14,8 +15,12 @@ import java.io.OutputStream;
 import java.math.BigInteger;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 
 /**
@@ -24,37 +29,52 @@ import java.util.function.Consumer;
  * fair-http-server ☭ sweat and blood
  */
 public final class WebSocket extends Response {
+    private static final int PAYLOAD_CHUNK = 64 * 1024;
+
     final Consumer<ErrorRef> readErrorConsumer, writeErrorConsumer;
     private final IExtension extension;
     private final Consumer<String> textConsumer;
+    private final Consumer<ByteBuffer> textBufferConsumer;
     private final Consumer<byte[]> binaryConsumer;
     private final Consumer<WebSocket> pingConsumer, pongConsumer;
     private final Consumer<CloseReason> closeConsumer;
+    private final Consumer<Fragment> fragmentConsumer;
     private final boolean readEnabled, writeEnabled;
-    private final long readTimeoutMs;
-    private int frameStage, payloadlength;
+    private final long readTimeoutMs, maxMessageSize;
+    private int frameStage, payloadlength, payloadpos, utf8;
+    private long assembled;
+    private volatile long lastSeen;
+    long pinged;
+    private ByteArrayOutputStream assembly;
     private AFrame frame;
     private Frame incompleteframe;
     private Opcode optcode;
-    private boolean mask, closed;
+    private final ReentrantLock writing = new ReentrantLock(); // one frame at a time
+    private final AtomicBoolean finished = new AtomicBoolean(false);
+    private boolean mask;
+    private volatile boolean closed;
     private Drive drive;
     private byte[] payload, maskkey;
     private OutputStream os;
+    private Socket socket;
     private InetSocketAddress remote;
 
-    WebSocket(final IExtension extension, final Consumer<String> textConsumer, final Consumer<byte[]> binaryConsumer, final Consumer<WebSocket> pingConsumer, final Consumer<WebSocket> pongConsumer, final Consumer<CloseReason> closeConsumer, final Consumer<ErrorRef> readErrorConsumer, final Consumer<ErrorRef> writeErrorConsumer, final boolean readEnabled, final boolean writeEnabled, final long readTimeoutMs) {
+    WebSocket(final IExtension extension, final Consumer<String> textConsumer, final Consumer<ByteBuffer> textBufferConsumer, final Consumer<byte[]> binaryConsumer, final Consumer<WebSocket> pingConsumer, final Consumer<WebSocket> pongConsumer, final Consumer<CloseReason> closeConsumer, final Consumer<Fragment> fragmentConsumer, final Consumer<ErrorRef> readErrorConsumer, final Consumer<ErrorRef> writeErrorConsumer, final boolean readEnabled, final boolean writeEnabled, final long readTimeoutMs, final long maxMessageSize) {
         super(101, "Websocket Connection Upgrade");
         this.extension = extension;
         this.textConsumer = textConsumer;
+        this.textBufferConsumer = textBufferConsumer;
         this.binaryConsumer = binaryConsumer;
         this.pingConsumer = pingConsumer;
         this.pongConsumer = pongConsumer;
         this.closeConsumer = closeConsumer;
+        this.fragmentConsumer = fragmentConsumer;
         this.readErrorConsumer = readErrorConsumer;
         this.writeErrorConsumer = writeErrorConsumer;
         this.readEnabled = readEnabled;
         this.writeEnabled = writeEnabled;
         this.readTimeoutMs = readTimeoutMs;
+        this.maxMessageSize = maxMessageSize;
     }
 
     public InetSocketAddress remote() {
@@ -65,19 +85,55 @@ public final class WebSocket extends Response {
         return header(Headers.SecWebsocketAccept);
     }
 
+    public boolean isClosed() {
+        return closed;
+    }
+
+    long lastSeen() {
+        return lastSeen;
+    }
+
+    boolean isReadable() {
+        return readEnabled;
+    }
+
+    void feed(final byte[] data, final int from, final int to) {
+        int i = from;
+
+        while (i < to && !closed)
+            if (frameStage == 2) {
+                final int n = Math.min(to - i, payloadlength - payloadpos);
+                ensurePayload(n);
+
+                if (mask)
+                    for (int j = i; j < i + n; j++, payloadpos++)
+                        payload[payloadpos] = (byte) (data[j] ^ maskkey[payloadpos & 3]);
+                else {
+                    System.arraycopy(data, i, payload, payloadpos, n);
+                    payloadpos += n;
+                }
+
+                i += n;
+
+                if (payloadpos == payloadlength)
+                    frameReady();
+            } else
+                nextByte(data[i++]);
+    }
+
     private void nextByte(final byte b) {
-        if (closed || b == -1)
+        if (closed)
             return;
 
-        switch (frameStage++) {
+        switch (frameStage) {
             case -1:
-                frameStage = -1;
                 drive.accept(b);
                 break;
             case 0:
                 optcode = toOpcode((byte) (b & 15));
                 if (optcode == null) {
                     readErrorConsumer.accept(error("Unknown opcode " + (short) (b & 15)));
+                    close(CloseFrame.PROTOCOL_ERROR, "Unknown opcode");
                     return;
                 }
 
@@ -87,6 +143,7 @@ public final class WebSocket extends Response {
                 frame.setRSV1((b & 0x40) != 0);
                 frame.setRSV2((b & 0x20) != 0);
                 frame.setRSV3((b & 0x10) != 0);
+                frameStage = 1;
                 break;
             case 1:
                 mask = (b & -128) != 0;
@@ -95,76 +152,129 @@ public final class WebSocket extends Response {
                 if (payloadlength > 125) {
                     if (optcode == Opcode.PING || optcode == Opcode.PONG || optcode == Opcode.CLOSING) {
                         readErrorConsumer.accept(error("more than 125 octets payload"));
+                        close(CloseFrame.PROTOCOL_ERROR, "Control frame is too big");
                         return;
                     }
 
-                    if (payloadlength == 126) {
+                    frameStage = -1;
+
+                    if (payloadlength == 126)
                         drive = new Drive(2, bytes -> {
-                            frameStage = 2;
-                            final byte[] sizebytes = new byte[3];
-                            sizebytes[1] = bytes[0];
-                            sizebytes[2] = bytes[1];
-                            payloadlength = new BigInteger(sizebytes).intValue();
+                            payloadlength = ((bytes[0] & 0xFF) << 8) | (bytes[1] & 0xFF);
+                            prepareBody();
                         });
-                    } else {
+                    else
                         drive = new Drive(8, bytes -> {
-                            frameStage = 2;
-                            payloadlength = (int) new BigInteger(bytes).longValue();
-                        });
-                    }
+                            final long l = new BigInteger(bytes).longValue();
 
-                    frameStage = -1;
-                }
+                            if (l < 0 || l > Integer.MAX_VALUE) {
+                                tooBig();
+                                return;
+                            }
 
-                break;
-            case 2:
-                payload = new byte[payloadlength];
-                frameStage = -1;
-                if (mask) {
-                    drive = new Drive(4, bytes -> {
-                        maskkey = bytes;
-
-                        drive = new Drive(payloadlength, bb -> {
-                            frameStage = 3;
-                            for (int i = 0; i < payloadlength; i++)
-                                payload[i] = (byte) (bb[i] ^ maskkey[i % 4]);
+                            payloadlength = (int) l;
+                            prepareBody();
                         });
-                    });
                 } else
-                    drive = new Drive(payloadlength, bytes -> {
-                        frameStage = 3;
-                        payload = bytes;
-                    });
+                    prepareBody();
+
                 break;
-            case 3:
-                frameStage = 0;
+            case 2:
+                ensurePayload(1);
+                payload[payloadpos] = mask ? (byte) (b ^ maskkey[payloadpos & 3]) : b;
 
-                frame.setPayload(payload);
+                if (++payloadpos == payloadlength)
+                    frameReady();
+                break;
+        }
+    }
 
-                IExtension ext = null;
+    private void prepareBody() {
+        if (maxMessageSize > 0 && optcode != Opcode.PING && optcode != Opcode.PONG && optcode != Opcode.CLOSING && assembled + payloadlength > maxMessageSize) {
+            tooBig();
+            return;
+        }
 
-                if (frame.getOpcode() != Opcode.CONTINUOUS && (frame.isRSV1() || frame.isRSV2() || frame.isRSV3()))
-                    ext = extension;
+        payload = new byte[Math.min(payloadlength, PAYLOAD_CHUNK)];
+        payloadpos = 0;
+
+        if (mask) {
+            frameStage = -1;
+            drive = new Drive(4, bytes -> {
+                maskkey = bytes;
+                bodyOrReady();
+            });
+        } else
+            bodyOrReady();
+    }
 
-                if (ext == null)
-                    ext = new DefaultExtension();
+    // declared length is not trusted: buffer grows only as the bytes really come
+    private void ensurePayload(final int n) {
+        if (payloadpos + n > payload.length)
+            payload = Arrays.copyOf(payload, (int) Math.min(payloadlength, Math.max((long) payload.length << 1, payloadpos + n)));
+    }
 
-                if (ext.isFrameValid(frame))
-                    try {
-                        ext.decodeFrame(frame);
+    private void bodyOrReady() {
+        if (payloadlength == 0)
+            frameReady();
+        else
+            frameStage = 2;
+    }
 
-                        if (frame.isValid())
-                            process(frame);
-                        else
-                            readErrorConsumer.accept(error("Invalid frame catched: " + frame));
-                    } catch (final Exception e) {
-                        readErrorConsumer.accept(error("Frame processing error: " + frame + " :: " + e.getMessage(), e));
+    private void tooBig() {
+        readErrorConsumer.accept(error("Message exceeds size limit of " + maxMessageSize + " bytes"));
+        close(CloseFrame.TOOBIG, "Message too big");
+    }
+
+    private void frameReady() {
+        frameStage = 0;
+
+        frame.setPayload(payload);
+        payload = null;
+
+        IExtension ext = null;
+
+        if (frame.getOpcode() != Opcode.CONTINUOUS && (frame.isRSV1() || frame.isRSV2() || frame.isRSV3()))
+            ext = extension;
+
+        if (ext == null)
+            ext = new DefaultExtension();
+
+        if (ext.isFrameValid(frame))
+            try {
+                ext.decodeFrame(frame);
+
+                if (frame instanceof DataFrame) {
+                    if (isText(frame) && !validText(frame)) {
+                        readErrorConsumer.accept(error("Invalid UTF-8 in text frame: " + frame));
+                        close(CloseFrame.NO_UTF8, "Invalid UTF-8");
+                        return;
                     }
+
+                    process(frame);
+                } else if (frame.isValid())
+                    process(frame);
                 else
-                    readErrorConsumer.accept(error("Extension cant decode frame: " + frame));
+                    readErrorConsumer.accept(error("Invalid frame catched: " + frame));
+            } catch (final Exception e) {
+                readErrorConsumer.accept(error("Frame processing error: " + frame + " :: " + e.getMessage(), e));
+            }
+        else
+            readErrorConsumer.accept(error("Extension cant decode frame: " + frame));
+    }
 
-                break;
-        }
+    private boolean isText(final Frame frame) {
+        return frame.getOpcode() == Opcode.TEXT || (frame.getOpcode() == Opcode.CONTINUOUS && incompleteframe != null && incompleteframe.getOpcode() == Opcode.TEXT);
+    }
+
+    private boolean validText(final Frame frame) {
+        if (frame.getOpcode() == Opcode.TEXT)
+            utf8 = Utf8.ACCEPT;
+
+        final byte[] data = frame.getPayloadData();
+        utf8 = Utf8.validate(utf8, data, 0, data.length);
+
+        return utf8 != Utf8.REJECT && (!frame.isFin() || utf8 == Utf8.ACCEPT);
     }
 
     private void process(final Frame frame) {
@@ -196,8 +306,15 @@ public final class WebSocket extends Response {
 
         final byte[] data = frame.getPayloadData();
 
-        if (frame.getOpcode() == Opcode.TEXT)
-            textConsumer.accept(new String(data, StandardCharsets.UTF_8));
+        if (fragmentConsumer != null)
+            fragmentConsumer.accept(new Fragment(this, frame.getOpcode() == Opcode.TEXT, data, 0, true));
+        else if (frame.getOpcode() == Opcode.TEXT) {
+            if (textBufferConsumer != null)
+                textBufferConsumer.accept(ByteBuffer.wrap(data));
+
+            if (textConsumer != null)
+                textConsumer.accept(new String(data, StandardCharsets.UTF_8));
+        }
         else if (frame.getOpcode() == Opcode.BINARY)
             binaryConsumer.accept(data);
     }
@@ -205,26 +322,45 @@ public final class WebSocket extends Response {
     private void processFrameContinuousAndNonFin(final Frame frame, final Opcode curop) {
         if (curop != Opcode.CONTINUOUS) {
             incompleteframe = frame;
-        } else if (frame.isFin()) {
-            if (incompleteframe == null) {
-                readErrorConsumer.accept(error("Continuous frame sequence was not started."));
-                return;
-            }
+            assembled = 0;
 
-            incompleteframe.append(frame);
+            if (fragmentConsumer == null)
+                assembly = new ByteArrayOutputStream(Math.max(1024, frame.getPayloadData().length * 2));
 
-            ((AFrame) incompleteframe).isValid();
-
-            contentReady(incompleteframe);
+            fragment(frame);
+            return;
+        }
 
-            incompleteframe = null;
-        } else if (incompleteframe == null) {
+        if (incompleteframe == null) {
             readErrorConsumer.accept(error("Continuous frame sequence was not started."));
             return;
         }
 
-        if (curop == Opcode.CONTINUOUS && incompleteframe != null)
-            incompleteframe.append(frame);
+        fragment(frame);
+
+        if (frame.isFin()) {
+            if (fragmentConsumer == null) {
+                ((AFrame) incompleteframe).setPayload(assembly.toByteArray());
+                ((AFrame) incompleteframe).setFin(true);
+
+                contentReady(incompleteframe);
+            }
+
+            incompleteframe = null;
+            assembly = null;
+            assembled = 0;
+        }
+    }
+
+    private void fragment(final Frame frame) {
+        final byte[] data = frame.getPayloadData();
+        final long offset = assembled;
+        assembled += data.length;
+
+        if (fragmentConsumer != null)
+            fragmentConsumer.accept(new Fragment(this, incompleteframe.getOpcode() == Opcode.TEXT, data, offset, frame.isFin()));
+        else
+            assembly.write(data, 0, data.length);
     }
 
     private Opcode toOpcode(final byte opcode) {
@@ -257,19 +393,56 @@ public final class WebSocket extends Response {
     private void close(final int code, final String reason, final boolean remote) {
         if (closed) return;
 
-        synchronized (this) {
+        writing.lock();
+        try {
+            if (closed) return;
+
+            if (!remote) // before the flag, closed socket sends nothing
+                try {sendFrame(new CloseFrame(code, reason));} catch (final Exception ignore) {}
+
             closed = true;
+        } finally {
+            writing.unlock();
         }
 
-        if (!remote)
-            try {sendFrame(new CloseFrame(code, reason));} catch (final Exception ignore) {}
+        finish(code, reason, remote);
+    }
+
+    // peer is gone or stuck: no close frame, the socket is dropped at once, which also breaks a write blocked on it
+    void abort(final int code, final String reason) {
+        if (closed) return;
+
+        closed = true;
+        finish(code, reason, false);
+    }
+
+    private void finish(final int code, final String reason, final boolean remote) {
+        if (!finished.compareAndSet(false, true))
+            return;
+
+        WSHub.unregister(this);
 
-        if (os != null)
+        if (socket != null)
+            try {socket.close();} catch (final Exception ignore) {}
+        else if (os != null)
             try {os.close();} catch (final Exception ignore) {}
 
         closeConsumer.accept(new CloseReason(code, reason, remote));
     }
 
+    // false if a write is in progress, maybe stuck on a peer which doesn't read
+    boolean tryPing() {
+        if (!writing.tryLock())
+            return false;
+
+        try {
+            sendFrame(new PingFrame());
+            return true;
+        } finally {
+            writing.unlock();
+        }
+    }
+
     public void ping() {
         sendFrame(new PingFrame());
     }
@@ -286,11 +459,41 @@ public final class WebSocket extends Response {
 
         final TextFrame frame = new TextFrame();
         frame.setMasked(true);
-        frame.setPayload(message.getBytes(StandardCharsets.UTF_8));
+        frame.setValidPayload(message.getBytes(StandardCharsets.UTF_8));
+
+        sendFrame(frame);
+    }
+
+    public void sendText(final byte[] utf8) {
+        if (utf8 == null) {
+            writeErrorConsumer.accept(error("Message is null"));
+            return;
+        }
+
+        final TextFrame frame = new TextFrame();
+        frame.setMasked(true);
+        frame.setPayload(utf8);
 
         sendFrame(frame);
     }
 
+    public void sendText(final ByteBuffer utf8) {
+        if (utf8 == null) {
+            writeErrorConsumer.accept(error("Message is null"));
+            return;
+        }
+
+        if (utf8.hasArray() && utf8.arrayOffset() == 0 && utf8.position() == 0 && utf8.remaining() == utf8.array().length) {
+            sendText(utf8.array());
+            return;
+        }
+
+        final byte[] data = new byte[utf8.remaining()];
+        utf8.duplicate().get(data);
+
+        sendText(data);
+    }
+
     public void send(final byte[] message) {
         if (message == null) {
             writeErrorConsumer.accept(error("Message is null"));
@@ -304,8 +507,17 @@ public final class WebSocket extends Response {
         sendFrame(frame);
     }
 
-    private synchronized void sendFrame(final AFrame framedata) {
-        if (!writeEnabled) {
+    private void sendFrame(final AFrame framedata) {
+        writing.lock();
+        try {
+            sendFrame0(framedata);
+        } finally {
+            writing.unlock();
+        }
+    }
+
+    private void sendFrame0(final AFrame framedata) {
+        if (!writeEnabled && !(framedata instanceof ControlFrame)) {
             writeErrorConsumer.accept(error("Websocket is read-only"));
             return;
         }
@@ -425,23 +637,33 @@ public final class WebSocket extends Response {
 
     void spinOff(final Socket socket) {
         try {
+            this.socket = socket;
             os = socket.getOutputStream();
             remote = (InetSocketAddress) socket.getRemoteSocketAddress();
             os.write(WebSocket.this.asBytes());
 
+            lastSeen = System.currentTimeMillis();
+            WSHub.register(this);
+
             if (readEnabled) {
                 socket.setSoTimeout((int) readTimeoutMs);
 
                 CompletableFuture.runAsync(() -> {
                     try {
                         final InputStream is = socket.getInputStream();
+                        final byte[] buf = new byte[16 * 1024];
+                        int read;
 
                         do {
-                            nextByte((byte) is.read());
+                            if ((read = is.read(buf)) == -1) {
+                                close(CloseFrame.ABNORMAL_CLOSE, "Connection lost", true);
+                                break;
+                            }
+
+                            // any incoming byte counts as activity, so a slow large frame isn't reaped midway
+                            lastSeen = System.currentTimeMillis();
+                            feed(buf, 0, read);
                         } while (!socket.isClosed());
-
-                        if (!socket.isClosed())
-                            close(CloseFrame.GOING_AWAY, "Timed out", true);
                     } catch (final Exception e) {
                         readErrorConsumer.accept(error("Critical socket error", e));
                         close(CloseFrame.BUGGYCLOSE, e.getMessage());
@@ -497,6 +719,31 @@ public final class WebSocket extends Response {
         }
     }
 
+    public static class Fragment {
+        public final WebSocket ws;
+        public final boolean text, last;
+        public final long offset;
+        public final byte[] data;
+
+        private Fragment(final WebSocket ws, final boolean text, final byte[] data, final long offset, final boolean last) {
+            this.ws = ws;
+            this.text = text;
+            this.data = data;
+            this.offset = offset;
+            this.last = last;
+        }
+
+        @Override
+        public String toString() {
+            return "Fragment{" +
+                    "text=" + text +
+                    ", offset=" + offset +
+                    ", size=" + data.length +
+                    ", last=" + last +
+                    '}';
+        }
+    }
+
     public static class ErrorRef {
         public final WebSocket ws;
         public final String error;
@@ -1,12 +1,16 @@
 package org.logdoc.fairhttp.service.http.statics;
 
 import com.typesafe.config.Config;
+import org.logdoc.fairhttp.service.http.RequestId;
 import org.logdoc.fairhttp.service.http.Response;
 import org.logdoc.fairhttp.service.tools.ConfigTools;
+import org.slf4j.LoggerFactory;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import static org.logdoc.helpers.Texts.isEmpty;
@@ -34,18 +38,58 @@ public interface AssetsRead extends Function<String, Response> {
                         prefix += "/";
 
                     if (prefix.equals("/") || AssetsRead.class.getClassLoader().getResource(prefix) != null)
-                        return new BundledRead(staticsCfg, dir);
+                        return missCached(staticsCfg, new BundledRead(staticsCfg, dir));
                 }
 
                 final Path p = Paths.get(dir);
 
                 if (Files.exists(p) && Files.isDirectory(p))
-                    return new DirectRead(staticsCfg, p);
+                    return missCached(staticsCfg, new DirectRead(staticsCfg, p));
             }
         }
 
         return new NoStatics();
     }
 
+    private static AssetsRead missCached(final Config staticsCfg, final AssetsRead reader) {
+        final Config cfg = ConfigTools.sureConf(staticsCfg, "negative_cache");
+
+        if (cfg != null && cfg.hasPath("enabled") && !cfg.getBoolean("enabled"))
+            return reader;
+
+        final int max = cfg != null && ConfigTools.sureNN(cfg, "max_entries") ? cfg.getInt("max_entries") : 10000;
+        final long lifetime = cfg != null && ConfigTools.sureNN(cfg, "lifetime") ? cfg.getDuration("lifetime", TimeUnit.MILLISECONDS) : reader.generation() < 0 ? MissCache.defaultLifetime : 0;
+
+        LoggerFactory.getLogger(AssetsRead.class).info("Static misses are remembered for up to " + max + " paths" + (lifetime > 0 ? " for " + lifetime + " ms" : " until static root changes") + ".");
+
+        return new MissCache(reader, max, lifetime);
+    }
+
     boolean canProcess(String path);
+
+    default Response apply(final String path, final Map<String, String> headers) {
+        return apply(path);
+    }
+
+    default Response apply(final RequestId id, final Map<String, String> headers) {
+        return apply(id.path, headers);
+    }
+
+    default CacheStats cacheStats() {
+        return null;
+    }
+
+    default CacheStats missCacheStats() {
+        return null;
+    }
+
+    // grows when new content may have appeared, -1 if reader can't tell
+    default long generation() {
+        return 0;
+    }
+
+    // false if a file may appear at path without generation() noticing it
+    default boolean tracked(final String path) {
+        return generation() >= 0;
+    }
 }
@@ -7,10 +7,24 @@ import org.logdoc.helpers.std.MimeType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.JarURLConnection;
 import java.net.URL;
-import java.time.LocalDateTime;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+import static org.logdoc.fairhttp.service.tools.ConfigTools.sureBool;
+import static org.logdoc.fairhttp.service.tools.ConfigTools.sureConf;
 
 /**
  * @author Denis Danilin | me@loslobos.ru
@@ -21,90 +35,318 @@ public class BundledRead extends StaticRead {
     private static final Logger logger = LoggerFactory.getLogger(DirectRead.class);
     private final ClassLoader cl;
     private final String prefix;
+    private final long started = System.currentTimeMillis();
+
+    private final Map<String, Asset> index; // resource name -> asset, built once at startup
+    private final Set<String> dirs;
+    private final boolean complete; // every root of the prefix got indexed, so index miss is a definite 404
 
     BundledRead(final Config staticsCfg, final String prefix) {
         super(staticsCfg);
 
         this.cl = BundledRead.class.getClassLoader();
-        this.prefix = prefix;
+
+        String base = prefix.replace(BUNDLED_MARK, "").trim().replaceAll("/{2,}", "/");
+        while (base.startsWith("/"))
+            base = base.substring(1);
+        if (!base.isEmpty() && !base.endsWith("/"))
+            base += "/";
+
+        this.prefix = base;
 
         logger.info("Static bundled content root: " + prefix);
 
         if (autoDirList)
             logger.warn("WARNING: Auto directory listing is disabled in bundled content.");
+
+        final Map<String, Asset> assets = new HashMap<>(256);
+        final Set<String> folders = new HashSet<>(32);
+        boolean full = !base.isEmpty(); // whole classpath root is never indexed
+
+        if (full)
+            try {
+                final Enumeration<URL> roots = cl.getResources(base.substring(0, base.length() - 1));
+
+                while (roots.hasMoreElements())
+                    full &= index(roots.nextElement(), assets, folders);
+            } catch (final Exception e) {
+                logger.error("Cant index bundled content: " + e.getMessage(), e);
+                full = false;
+            }
+
+        index = Collections.unmodifiableMap(assets);
+        dirs = Collections.unmodifiableSet(folders);
+        complete = full;
+
+        logger.info("Bundled content index: " + index.size() + " files in " + dirs.size() + " folders" + (complete ? "" : ", not indexed resources are resolved lazily"));
+
+        final Config cacheCfg = sureConf(staticsCfg, "memory_cache");
+        if (cache && cacheCfg != null && sureBool(cacheCfg, "preload"))
+            preload();
+    }
+
+    private boolean index(final URL root, final Map<String, Asset> assets, final Set<String> folders) throws Exception {
+        switch (root.getProtocol()) {
+            case "jar":
+                final URLConnection connection = root.openConnection();
+                if (!(connection instanceof JarURLConnection) || !(((JarURLConnection) connection).getEntryName() + "/").equals(prefix))
+                    return false;
+
+                final JarFile jar = ((JarURLConnection) connection).getJarFile(); // shared with class loader, not ours to close
+                final Enumeration<JarEntry> entries = jar.entries();
+
+                while (entries.hasMoreElements()) {
+                    final JarEntry e = entries.nextElement();
+
+                    if (!e.getName().startsWith(prefix) || e.getName().length() == prefix.length())
+                        continue;
+
+                    if (e.isDirectory())
+                        folders.add(e.getName().substring(0, e.getName().length() - 1));
+                    else if (!assets.containsKey(e.getName())) {
+                        final long modified = e.getTime() > 0 ? e.getTime() : started;
+
+                        try (final InputStream is = jar.getInputStream(e)) {
+                            assets.put(e.getName(), new Asset(e.getName(), e.getSize(), modified, e.getCrc() >= 0 ? e.getCrc() : modified, mime(e.getName(), is)));
+                        }
+                        parents(e.getName(), folders);
+                    }
+                }
+
+                return true;
+            case "file":
+                final Path dir = Paths.get(root.toURI());
+
+                try (final Stream<Path> walk = Files.walk(dir)) {
+                    for (final Path f : (Iterable<Path>) walk::iterator) {
+                        if (f.equals(dir))
+                            continue;
+
+                        final String name = prefix + dir.relativize(f).toString().replace(File.separatorChar, '/');
+
+                        if (Files.isDirectory(f))
+                            folders.add(name);
+                        else if (!assets.containsKey(name)) {
+                            final long modified = Files.getLastModifiedTime(f).toMillis();
+
+                            try (final InputStream is = Files.newInputStream(f)) {
+                                assets.put(name, new Asset(name, Files.size(f), modified, modified, mime(name, is)));
+                            }
+                        }
+                    }
+                }
+
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void parents(final String name, final Set<String> folders) {
+        for (int i = name.lastIndexOf('/'); i > prefix.length() - 1; i = name.lastIndexOf('/', i - 1))
+            folders.add(name.substring(0, i));
+    }
+
+    private String mime(final String name, final InputStream is) throws IOException {
+        final int dot = name.lastIndexOf('.');
+        final String mime = dot > 0 ? getMime(name.substring(dot)) : null;
+
+        if (mime != null)
+            return mime;
+
+        final int[] head = new int[16];
+        if (is != null)
+            for (int i = 0, b = 0; i < head.length && b != -1; i++)
+                head[i] = (b = is.read());
+
+        return MimeType.guessMime(head).toString();
+    }
+
+    private void preload() {
+        int count = 0;
+
+        for (final Asset a : index.values()) {
+            final String webpath = "/" + a.name.substring(prefix.length());
+
+            if (cacheable(a.size) && kept(webpath, a.size))
+                try (final InputStream is = cl.getResourceAsStream(a.name)) {
+                    if (is == null)
+                        continue;
+
+                    final byte[] data = is.readAllBytes();
+                    final ByteBuffer body = ByteBuffer.allocateDirect(data.length);
+                    body.put(data).flip();
+
+                    cacheMe(webpath, body, a.mime, hasVariants(webpath, a.name, a.mime, a.size), etag(a.size, a.tag), a.modified);
+                    count++;
+                } catch (final Exception e) {
+                    logger.error("Cant preload " + a.name + ": " + e.getMessage(), e);
+                }
+        }
+
+        logger.info("Preloaded " + count + " bundled files into memory cache.");
+    }
+
+    private Asset resolve(final String path) {
+        String name = (prefix + path).replaceAll("/{2,}", "/");
+        if (name.startsWith("/"))
+            name = name.substring(1);
+
+        final String bare = name.endsWith("/") ? name.substring(0, name.length() - 1) : name;
+
+        if (dirs.contains(bare) || (!prefix.isEmpty() && bare.length() == prefix.length() - 1 && prefix.startsWith(bare)))
+            return new Asset(bare);
+
+        final Asset asset = index.get(name);
+
+        return asset != null || complete ? asset : lazy(name);
     }
 
-    private FRes resolve(final String path) {
-        final String p = (prefix + path).replaceAll("/{2,}", "/");
+    // resource out of index (exploded or exotic classpath), resolved the slow way
+    private Asset lazy(final String name) {
+        final URL fileRes = cl.getResource(name);
+
+        if (fileRes == null)
+            return null;
 
-        final URL fileRes = cl.getResource(p);
+        if (name.endsWith("/"))
+            return new Asset(name.substring(0, name.length() - 1));
 
-        final FRes f = new FRes();
-        f.name = p;
-        f.exists = fileRes != null;
-        f.time = LocalDateTime.now();
         try {
-            f.size = fileRes != null ? fileRes.openConnection().getContentLength() : 0;
-        } catch (final Exception ignore) {
+            final URLConnection connection = fileRes.openConnection();
+            final long modified = connection.getLastModified() > 0 ? connection.getLastModified() : started;
+            String mime = refreshMime(name);
+
+            if (mime == null)
+                try (final InputStream is = connection.getInputStream()) {
+                    rememberMime(name, (mime = mime(name, is)));
+                }
+
+            return new Asset(name, connection.getContentLengthLong(), modified, modified, mime);
+        } catch (final Exception e) {
+            logger.error(name + " :: " + e.getMessage(), e);
+            return null;
         }
+    }
+
+    private void transfer(final String name, final OutputStream os, final long from, final long length) throws IOException {
+        try (final InputStream is = cl.getResourceAsStream(name)) {
+            if (is == null)
+                throw new IOException("Resource is gone: " + name);
+
+            for (long skip = from, skipped; skip > 0; skip -= skipped)
+                if ((skipped = is.skip(skip)) <= 0) {
+                    if (is.read() == -1)
+                        throw new IOException("Resource is shorter than requested range: " + name);
+                    skipped = 1;
+                }
+
+            final byte[] buf = new byte[(int) Math.min(64 * 1024, Math.max(1, length))];
+            long left = length;
+            int read;
+
+            while (left > 0 && (read = is.read(buf, 0, (int) Math.min(buf.length, left))) != -1) {
+                os.write(buf, 0, read);
+                left -= read;
+            }
 
-        return f;
+            os.flush();
+        }
     }
 
     @Override
     public boolean canProcess(final String path) {
-        return resolve(path).exists;
+        return resolve(path) != null;
+    }
+
+    @Override
+    protected InputStream open(final String name) {
+        return cl.getResourceAsStream(name);
+    }
+
+    @Override
+    protected long length(final String name) {
+        final Asset asset = index.get(name);
+
+        if (asset != null || complete)
+            return asset == null ? -1 : asset.size;
+
+        final URL url = cl.getResource(name);
+
+        try {
+            return url == null ? -1 : url.openConnection().getContentLengthLong();
+        } catch (final IOException e) {
+            return -1;
+        }
     }
 
     @Override
     public Response apply(final String webpath) {
-        final FRes p = resolve(webpath);
+        return apply(webpath, null);
+    }
 
-        if (!p.exists)
+    @Override
+    public Response apply(final String webpath, final Map<String, String> headers) {
+        final Asset p = resolve(webpath);
+
+        if (p == null)
             return Response.NotFound();
 
-        Response response = pickCached(p.name);
+        final List<String> encodings = encodings(headers);
+        Response response;
 
         try {
-            if (response != null)
-                return response;
-
-            if (webpath.endsWith("/")) {
+            if (p.folder) {
                 if (gotIndex)
-                    for (final String idx : indexFile)
-                        if (resolve(webpath + '/' + idx).exists)
-                            return apply(webpath + '/' + idx);
+                    for (final String idx : indexFile) {
+                        final Asset i = resolve(webpath + '/' + idx);
+
+                        if (i != null && !i.folder)
+                            return apply(webpath + '/' + idx, headers);
+                    }
 
                 response = Response.Forbidden();
             } else {
-                final int dot = p.name.lastIndexOf('.');
-                String mime = null;
+                final String etag = etag(p.size, p.tag);
+                final boolean rangeRequest = headers != null && headers.containsKey(Ranges.Range);
 
-                if (dot > 0)
-                    mime = getMime(p.name.substring(dot));
+                if ((response = notModified(headers, webpath, etag, p.modified)) != null)
+                    return response;
 
-                if (mime == null) {
-                    mime = refreshMime(webpath);
+                if (!rangeRequest && (encodings.isEmpty() || plain(webpath)) && (response = pickCached(webpath, etag)) != null)
+                    return response;
 
-                    if (mime == null) {
-                        final int[] head = new int[16];
+                final String mime = p.mime;
+                final boolean vary = hasVariants(webpath, p.name, mime, p.size);
 
+                if (rangeRequest && (response = ranged(headers, etag, p.modified, p.size, mime, (os, from, length) -> transfer(p.name, os, from, length))) != null) {
+                    if (vary)
+                        response.header(Headers.Vary, Headers.AcceptEncoding);
 
-                        try (final InputStream is = cl.getResourceAsStream(p.name)) {
-                            if (is != null)
-                                for (int i = 0, b = 0; i < head.length && b != -1; i++)
-                                    head[i] = (b = is.read());
-                        }
+                    return response;
+                }
+
+                if ((response = encoded(webpath, p.name, encodings, mime, p.size, etag, p.modified)) != null || (response = pickCached(webpath, etag)) != null)
+                    return response;
 
-                        mime = MimeType.guessMime(head).toString();
+                if (cacheable(p.size) && kept(webpath, p.size))
+                    try (final InputStream is = cl.getResourceAsStream(p.name)) {
+                        if (is != null) {
+                            final byte[] data = is.readAllBytes();
+                            final ByteBuffer body = ByteBuffer.allocateDirect(data.length);
+                            body.put(data).flip();
 
-                        rememberMime(webpath, mime);
+                            return cacheMe(webpath, body, mime, vary, etag, p.modified);
+                        }
                     }
-                }
 
                 response = Response.Ok();
+                if (vary)
+                    response.header(Headers.Vary, Headers.AcceptEncoding);
                 response.header(Headers.ContentType, mime);
                 response.header(Headers.ContentLength, p.size);
+                response.header(Ranges.AcceptRanges, "bytes");
+                validators(response, etag, p.modified);
                 response.setPromise(os -> {
                     final byte[] buf = new byte[1024 * 640];
                     int read;
@@ -116,14 +358,11 @@ public class BundledRead extends StaticRead {
 
                         os.flush();
                     } catch (final Exception e) {
-                        logger.error(p + " :: " + e.getMessage(), e);
+                        logger.error(p.name + " :: " + e.getMessage(), e);
                     }
                 });
             }
 
-            if (response.is200())
-                cacheMe(webpath, response);
-
             return response;
         } catch (final IOException e) {
             logger.error(e.getMessage(), e);
@@ -131,4 +370,28 @@ public class BundledRead extends StaticRead {
             return Response.ServerError();
         }
     }
+
+    private static final class Asset {
+        final String name, mime;
+        final long size, modified, tag; // tag - crc for jar entries, mtime otherwise
+        final boolean folder;
+
+        Asset(final String name, final long size, final long modified, final long tag, final String mime) {
+            this.name = name;
+            this.size = size;
+            this.modified = modified;
+            this.tag = tag;
+            this.mime = mime;
+            this.folder = false;
+        }
+
+        Asset(final String folder) {
+            this.name = folder;
+            this.size = 0;
+            this.modified = 0;
+            this.tag = 0;
+            this.mime = null;
+            this.folder = true;
+        }
+    }
 }
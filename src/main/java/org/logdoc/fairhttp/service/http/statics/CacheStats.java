@@ -0,0 +1,29 @@
+package org.logdoc.fairhttp.service.http.statics;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 21:40
+ * fair-http-server ☭ sweat and blood
+ */
+public final class CacheStats {
+    public final long hits, misses, evictions, expirations, rejections, entries, bytes;
+
+    CacheStats(final long hits, final long misses, final long evictions, final long expirations, final long rejections, final long entries, final long bytes) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.rejections = rejections;
+        this.entries = entries;
+        this.bytes = bytes;
+    }
+
+    public double hitRate() {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    @Override
+    public String toString() {
+        return "hits: " + hits + ", misses: " + misses + ", evictions: " + evictions + ", expirations: " + expirations + ", rejections: " + rejections + ", entries: " + entries + ", bytes: " + bytes;
+    }
+}
@@ -0,0 +1,178 @@
+package org.logdoc.fairhttp.service.http.statics;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.logdoc.fairhttp.service.tools.Json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 18:50
+ * fair-http-server ☭ sweat and blood
+ *
+ * Sorted snapshot of a folder (folders first, then files, by name), taken at given folder mtime.
+ * Holds only names and attributes, markup is rendered page by page straight into the output.
+ */
+final class DirListing {
+    private static final DateTimeFormatter format = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+    private static final Comparator<Entry> order = Comparator.<Entry>comparingInt(e -> e.folder ? 0 : 1).thenComparing(e -> e.name);
+
+    final long modified;
+    private final Entry[] entries;
+
+    private DirListing(final long modified, final Entry[] entries) {
+        this.modified = modified;
+        this.entries = entries;
+    }
+
+    static DirListing of(final Path dir, final long modified) throws IOException {
+        final List<Entry> list = new ArrayList<>(64);
+
+        try (final DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+            for (final Path f : ds)
+                try {
+                    final BasicFileAttributes fa = Files.readAttributes(f, BasicFileAttributes.class);
+                    list.add(new Entry(f.getFileName().toString(), fa.isDirectory(), fa.isDirectory() ? 0 : fa.size(), fa.lastModifiedTime().toMillis()));
+                } catch (final IOException ignore) { // gone while we were walking
+                }
+        }
+
+        final Entry[] entries = list.toArray(new Entry[0]);
+        Arrays.sort(entries, order);
+
+        return new DirListing(modified, entries);
+    }
+
+    int size() {
+        return entries.length;
+    }
+
+    void html(final String dirName, final int offset, final int limit, final OutputStream os) {
+        final int from = Math.min(offset, entries.length), to = limit > 0 ? (int) Math.min(entries.length, (long) from + limit) : entries.length;
+        final String name = escape(dirName);
+
+        try {
+            write(os, "<html><head><title>Index of " + name + "</title></head><body><h1>Index of " + name + "</h1><hr><pre><a href=\"../\">../</a>\n");
+
+            final StringBuilder line = new StringBuilder(128);
+            for (int i = from; i < to; i++) {
+                final Entry e = entries[i];
+                final String n = e.name + (e.folder ? "/" : "");
+                final String l = e.folder ? "-" : Long.toString(e.size);
+
+                line.setLength(0);
+                line.append("<a href='").append(escape(dirName.isEmpty() ? n : dirName + "/" + n)).append("'>").append(escape(n)).append("</a>")
+                        .append(" ".repeat(Math.max(0, 51 - n.length())))
+                        .append(format.format(Instant.ofEpochMilli(e.modified).atZone(ZoneId.systemDefault())))
+                        .append(" ".repeat(Math.max(0, 20 - l.length()))).append(l).append('\n');
+
+                write(os, line.toString());
+            }
+
+            write(os, "</pre><hr>");
+
+            if (from > 0 || to < entries.length) {
+                final int page = limit > 0 ? limit : to - from;
+
+                if (from > 0)
+                    write(os, "<a href='?offset=" + Math.max(0, from - page) + "&limit=" + page + "'>&lt; prev</a> ");
+
+                write(os, (from + 1) + " - " + to + " of " + entries.length);
+
+                if (to < entries.length)
+                    write(os, " <a href='?offset=" + to + "&limit=" + page + "'>next &gt;</a>");
+            }
+
+            write(os, "</body></html>");
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void json(final String dirName, final int offset, final int limit, final OutputStream os) {
+        final int from = Math.min(offset, entries.length), to = limit > 0 ? (int) Math.min(entries.length, (long) from + limit) : entries.length;
+
+        try {
+            final JsonGenerator g = Json.mapper().getFactory().createGenerator(os);
+
+            g.writeStartObject();
+            g.writeStringField("name", dirName);
+            g.writeNumberField("total", entries.length);
+            g.writeNumberField("offset", from);
+            g.writeNumberField("count", to - from);
+            g.writeFieldName("entries");
+            g.writeStartArray();
+
+            for (int i = from; i < to; i++) {
+                final Entry e = entries[i];
+
+                g.writeStartObject();
+                g.writeStringField("name", e.name);
+                g.writeBooleanField("folder", e.folder);
+                if (!e.folder)
+                    g.writeNumberField("size", e.size);
+                g.writeStringField("modified", DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(e.modified).atOffset(ZoneOffset.UTC)));
+                g.writeEndObject();
+            }
+
+            g.writeEndArray();
+            g.writeEndObject();
+            g.close(); // on success only: closing the target ends the chunked body, a failed listing must stay unterminated
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void write(final OutputStream os, final String s) throws IOException {
+        os.write(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String escape(final String s) {
+        StringBuilder sb = null;
+
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            final String r = c == '<' ? "&lt;" : c == '>' ? "&gt;" : c == '&' ? "&amp;" : c == '\'' ? "&#39;" : c == '"' ? "&quot;" : null;
+
+            if (r != null && sb == null)
+                sb = new StringBuilder(s.length() + 16).append(s, 0, i);
+
+            if (sb != null) {
+                if (r != null)
+                    sb.append(r);
+                else
+                    sb.append(c);
+            }
+        }
+
+        return sb == null ? s : sb.toString();
+    }
+
+    private static final class Entry {
+        private final String name;
+        private final boolean folder;
+        private final long size, modified;
+
+        private Entry(final String name, final boolean folder, final long size, final long modified) {
+            this.name = name;
+            this.folder = folder;
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+}
@@ -2,8 +2,10 @@ package org.logdoc.fairhttp.service.http.statics;
 
 import com.typesafe.config.Config;
 import org.logdoc.fairhttp.service.api.helpers.Headers;
+import org.logdoc.fairhttp.service.http.ChunkedResponse;
+import org.logdoc.fairhttp.service.http.FileResponse;
+import org.logdoc.fairhttp.service.http.RequestId;
 import org.logdoc.fairhttp.service.http.Response;
-import org.logdoc.fairhttp.service.tools.PhasedConsumer;
 import org.logdoc.helpers.std.MimeType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,19 +14,24 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.util.Objects;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
-import static org.logdoc.fairhttp.service.http.RFC.FEED;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.logdoc.fairhttp.service.tools.ConfigTools.sureConf;
+import static org.logdoc.fairhttp.service.tools.ConfigTools.sureNN;
+import static org.logdoc.helpers.Digits.getInt;
+import static org.logdoc.helpers.Texts.isEmpty;
+import static org.logdoc.helpers.Texts.notNull;
 import static org.logdoc.helpers.std.MimeTypes.TEXTHTML;
 
 /**
@@ -35,13 +42,76 @@ import static org.logdoc.helpers.std.MimeTypes.TEXTHTML;
 public class DirectRead extends StaticRead {
     private static final Logger logger = LoggerFactory.getLogger(DirectRead.class);
 
+    private final static String metaPrm = "metadata_cache", metaEnblPrm = "enabled", metaEntriesPrm = "max_entries", metaLifePrm = "lifetime",
+            listLimitPrm = "auto_index_limit", listCachePrm = "auto_index_cache_entries";
+
     private final Path root;
+    private final StaticMeta metas;
+    private final int listLimit;
+    private final long listCacheMax;
+    private final LinkedHashMap<String, DirListing> listings; // folder id -> sorted snapshot, LRU bounded by total entries
+    private long listed;
 
     DirectRead(final Config staticsCfg, final Path root) {
         super(staticsCfg);
 
         this.root = root;
         logger.info("Static content root dir: " + this.root);
+
+        final Config metaCfg = sureConf(staticsCfg, metaPrm);
+
+        metas = new StaticMeta(root,
+                metaCfg == null || !metaCfg.hasPath(metaEnblPrm) || metaCfg.getBoolean(metaEnblPrm),
+                metaCfg != null && sureNN(metaCfg, metaEntriesPrm) ? metaCfg.getInt(metaEntriesPrm) : 65536,
+                metaCfg != null && sureNN(metaCfg, metaLifePrm) ? metaCfg.getDuration(metaLifePrm, TimeUnit.MILLISECONDS) : 0,
+                this::changed);
+
+        listLimit = sureNN(staticsCfg, listLimitPrm) ? staticsCfg.getInt(listLimitPrm) : 0;
+        listCacheMax = sureNN(staticsCfg, listCachePrm) ? staticsCfg.getLong(listCachePrm) : 1 << 20;
+        listings = new LinkedHashMap<>(16, .75f, true);
+    }
+
+    private void changed(final String name) {
+        forget(name);
+
+        synchronized (listings) {
+            if (name == null) {
+                listings.clear();
+                listed = 0;
+            } else {
+                final DirListing l = listings.remove(name.lastIndexOf(File.separatorChar) == -1 ? "" : name.substring(0, name.lastIndexOf(File.separatorChar)));
+
+                if (l != null)
+                    listed -= l.size();
+            }
+        }
+    }
+
+    // sorted listing of the folder as of its mtime, walked again only when folder changes
+    private DirListing listing(final String id, final Path dir, final long modified) throws IOException {
+        DirListing l;
+
+        synchronized (listings) {
+            l = listings.get(id);
+        }
+
+        if (l != null && l.modified == modified)
+            return l;
+
+        l = DirListing.of(dir, modified);
+
+        synchronized (listings) {
+            final DirListing old = listings.put(id, l);
+            listed += l.size() - (old == null ? 0 : old.size());
+
+            final Iterator<DirListing> i = listings.values().iterator();
+            while (listed > listCacheMax && i.hasNext()) {
+                listed -= i.next().size();
+                i.remove();
+            }
+        }
+
+        return l;
     }
 
     public static Response fileResponse(final Path p, final String mimeType, final long size) {
@@ -49,122 +119,138 @@ public class DirectRead extends StaticRead {
     }
 
     public static Response fileResponseWithTransferTo(final Path p, final String mimeType, final long size) {
-        final Response response = Response.Ok();
+        final Response response = FileResponse.Ok(p, size);
         response.header(Headers.ContentType, mimeType);
         response.header(Headers.ContentLength, size);
 
-        response.setPromise(os -> {
-            try (var fileChannel = FileChannel.open(p, StandardOpenOption.READ); var outChan = Channels.newChannel(os)) {
-                long position = 0;
-                long remaining = size;
+        return response;
+    }
 
-                while (remaining > 0) {
-                    long transferred = fileChannel.transferTo(position, remaining, outChan);
-                    if (transferred <= 0)
-                        break;
+    static void transfer(final Path p, final OutputStream os, final long from, final long length) throws IOException {
+        try (var fileChannel = FileChannel.open(p, StandardOpenOption.READ)) {
+            final var outChan = Channels.newChannel(os);
+            long position = from;
+            long remaining = length;
 
-                    position += transferred;
-                    remaining -= transferred;
-                }
+            while (remaining > 0) {
+                long transferred = fileChannel.transferTo(position, remaining, outChan);
+                if (transferred <= 0) // Content-Length is already sent, as with FileResponse the connection has to break
+                    throw new IOException("File " + p + " ended " + remaining + " bytes short of the requested range");
 
-                os.flush();
-            } catch (final Exception e) {
-                logger.error("Error transferring file " + p + ": " + e.getMessage(), e);
-                throw new RuntimeException("Failed to transfer file", e);
+                position += transferred;
+                remaining -= transferred;
             }
-        });
+
+            os.flush();
+        }
+    }
+
+    @Override
+    public boolean canProcess(final String webpath) {
+        return metas.lookup(normalize(webpath, File.separatorChar)).exists;
+    }
+
+    @Override
+    public long generation() {
+        return metas.generation();
+    }
+
+    @Override
+    public boolean tracked(final String webpath) {
+        return metas.tracked(normalize(webpath, File.separatorChar));
+    }
+
+    @Override
+    protected InputStream open(final String name) throws IOException {
+        final Path p = Paths.get(name);
+
+        return Files.isRegularFile(p) ? Files.newInputStream(p) : null;
+    }
+
+    @Override
+    protected Response stream(final String name, final long length) {
+        final Response response = FileResponse.Ok(Paths.get(name), length);
+        response.header(Headers.ContentLength, length);
 
         return response;
     }
 
     @Override
-    public boolean canProcess(String webpath) {
-        webpath = webpath.replaceAll("/{2,}", "/");
-        if (webpath.startsWith("/"))
-            webpath = webpath.substring(1);
-        webpath = webpath.replace('/', File.separatorChar);
+    protected long length(final String name) {
+        try {
+            final Path p = Paths.get(name);
+
+            return Files.isRegularFile(p) ? Files.size(p) : -1;
+        } catch (final IOException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public Response apply(final String webpath) {
+        return apply(webpath, null);
+    }
 
-        return Files.exists(root.resolve(webpath));
+    @Override
+    public Response apply(final String webpath, final Map<String, String> headers) {
+        return serve(normalize(webpath, File.separatorChar), headers, null);
     }
 
     @Override
-    public Response apply(String webpath) {
-        webpath = webpath.replaceAll("/{2,}", "/");
-        if (webpath.startsWith("/"))
-            webpath = webpath.substring(1);
-        webpath = webpath.replace('/', File.separatorChar);
+    public Response apply(final RequestId id, final Map<String, String> headers) {
+        return serve(normalize(id.path, File.separatorChar), headers, id);
+    }
 
-        final Path p = root.resolve(webpath);
+    private Response serve(final String webpath, final Map<String, String> headers, final RequestId id) {
+        final StaticMeta.Meta meta = metas.lookup(webpath);
 
-        if (!Files.exists(p))
+        if (!meta.exists)
             return Response.NotFound();
 
-        Response response = pickCached(webpath);
+        final Path p = metas.path(webpath);
+        final List<String> encodings = encodings(headers);
+        Response response;
 
         try {
-            if (response != null)
-                return response;
-
-            if (Files.isDirectory(p)) {
+            if (meta.folder) {
                 if (gotIndex) {
-                    Path subid;
+                    String subid;
+                    StaticMeta.Meta sub;
                     for (final String idx : indexFile)
-                        if (Files.exists((subid = p.resolve(idx))) && !Files.isDirectory(subid))
-                            return apply(webpath + '/' + subid.getFileName());
+                        if ((sub = metas.lookup((subid = webpath.isEmpty() ? idx : webpath + File.separatorChar + idx))).exists && !sub.folder)
+                            return serve(subid, headers, id);
                 }
 
                 if (autoDirList) {
-                    final String wp = webpath;
-                    response = Response.Ok();
-                    response.header(Headers.ContentType, TEXTHTML);
-                    response.setPromise(new PhasedConsumer<>() {
-                        private byte[] data;
-
-                        @Override
-                        public void warmUp(final OutputStream os) {
-                            try (final Stream<Path> fs = Files.list(p)) {
-                                data = dirList(p.getFileName().toString(), fs
-                                        .map(f -> {
-                                            try {
-                                                final FRes fr = new FRes();
-                                                fr.isFile = !Files.isDirectory(f);
-                                                fr.time = LocalDateTime.from(Files.getLastModifiedTime(f).toInstant()
-                                                        .atZone(ZoneId.systemDefault()));
-                                                fr.name = f.getFileName().toString();
-                                                fr.size = fr.isFile ? Files.size(f) : 0;
-
-                                                return fr;
-                                            } catch (final Exception e) {
-                                                logger.error(e.getMessage(), e);
-                                                return null;
-                                            }
-                                        })
-                                        .filter(Objects::nonNull)
-                                        .collect(Collectors.toList()));
-
-                                os.write((Headers.ContentLength + ": " + data.length).getBytes(StandardCharsets.UTF_8));
-                                os.write(FEED);
-                            } catch (final Exception e) {
-                                logger.error(wp + " :: " + e.getMessage(), e);
-                            }
-                        }
-
-                        @Override
-                        public void accept(final OutputStream os) {
-                            try {
-                                os.write(data);
-                            } catch (IOException e) {
-                                logger.error(wp + " :: " + e.getMessage(), e);
-                            }
-                        }
-                    });
+                    final DirListing listing = listing(webpath, p, meta.modified);
+                    final String dirName = webpath.isEmpty() ? "" : p.getFileName().toString();
+                    final int offset = id == null ? 0 : Math.max(0, getInt(id.query("offset")));
+                    final int limit = id == null || isEmpty(id.query("limit")) ? listLimit : Math.max(0, getInt(id.query("limit")));
+
+                    if (id != null && "json".equals(id.query("format")) || headers != null && notNull(headers.get("Accept")).startsWith("application/json")) {
+                        response = ChunkedResponse.Ok(os -> listing.json(dirName, offset, limit, os));
+                        response.header(Headers.ContentType, "application/json; charset=utf-8");
+                    } else {
+                        response = ChunkedResponse.Ok(os -> listing.html(dirName, offset, limit, os));
+                        response.header(Headers.ContentType, TEXTHTML);
+                    }
                 } else
                     response = Response.Forbidden();
             } else {
+                final long size = meta.size, modified = meta.modified;
+                final String etag = etag(size, modified);
+                final boolean rangeRequest = headers != null && headers.containsKey(Ranges.Range);
+
+                if ((response = notModified(headers, webpath, etag, modified)) != null)
+                    return response;
+
+                if (!rangeRequest && (encodings.isEmpty() || plain(webpath)) && (response = pickCached(webpath, etag)) != null)
+                    return response;
+
                 final int dot = p.getFileName().toString().lastIndexOf('.');
-                String mime = null;
+                String mime = meta.mime;
 
-                if (dot > 0)
+                if (mime == null && dot > 0)
                     mime = getMime(p.getFileName().toString().substring(dot));
 
                 if (mime == null) {
@@ -184,13 +270,38 @@ public class DirectRead extends StaticRead {
                     }
                 }
 
-                long size = Files.size(p);
+                meta.mime = mime;
 
-                response = fileResponseWithTransferTo(p, mime, size);
-            }
+                final boolean vary = hasVariants(webpath, p.toString(), mime, size);
+
+                if (rangeRequest && (response = ranged(headers, etag, modified, size, mime, new Slicer(p))) != null) {
+                    if (vary)
+                        response.header(Headers.Vary, Headers.AcceptEncoding);
+
+                    return response;
+                }
+
+                if ((response = encoded(webpath, p.toString(), encodings, mime, size, etag, modified)) != null || (response = pickCached(webpath, etag)) != null)
+                    return response;
+
+                if (cacheable(size) && kept(webpath, size)) {
+                    final ByteBuffer body = ByteBuffer.allocateDirect((int) size);
+
+                    try (final FileChannel fc = FileChannel.open(p, StandardOpenOption.READ)) {
+                        while (body.hasRemaining() && fc.read(body) != -1) ;
+                    }
+
+                    body.flip();
+                    response = cacheMe(webpath, body, mime, vary, etag, modified);
+                } else {
+                    response = fileResponseWithTransferTo(p, mime, size);
+                    response.header(Ranges.AcceptRanges, "bytes");
+                    validators(response, etag, modified);
 
-            if (response.is200())
-                cacheMe(webpath, response);
+                    if (vary)
+                        response.header(Headers.Vary, Headers.AcceptEncoding);
+                }
+            }
 
             return response;
         } catch (final IOException e) {
@@ -199,4 +310,22 @@ public class DirectRead extends StaticRead {
             return Response.ServerError();
         }
     }
+
+    private static final class Slicer implements Ranges.Copier {
+        private final Path file;
+
+        private Slicer(final Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public void copy(final OutputStream os, final long from, final long length) throws IOException {
+            transfer(file, os, from, length);
+        }
+
+        @Override
+        public Response slice(final int code, final String message, final long from, final long length) {
+            return new FileResponse(code, message, file, from, length);
+        }
+    }
 }
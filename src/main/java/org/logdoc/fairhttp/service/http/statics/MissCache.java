@@ -0,0 +1,205 @@
+package org.logdoc.fairhttp.service.http.statics;
+
+import org.logdoc.fairhttp.service.http.RequestId;
+import org.logdoc.fairhttp.service.http.Response;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 16:20
+ * fair-http-server ☭ sweat and blood
+ *
+ * Remembers recently missed paths in front of real assets reader, so 404 floods don't hit disk or classpath.
+ * Bounded approximate FIFO without locks on the lookup path, whole content is dropped as soon as reader's generation changes.
+ * Misses of paths the reader can't track are kept no longer than lifetime, or {@link #defaultLifetime} if it is unlimited.
+ * Each request is counted once: by canProcess if it ends there, otherwise by apply.
+ */
+final class MissCache implements AssetsRead {
+    static final long defaultLifetime = 10000; // for readers and paths whose new files go unnoticed
+    private static final int maxKeyLength = 1024, overhead = 64;
+
+    private final AssetsRead delegate;
+    private final int maxEntries;
+    private final long lifetime;
+    private final ConcurrentHashMap<String, Long> missed; // path -> expiration moment
+    private final Queue<String> order; // insertion order, may hold paths already gone from the map
+    private final AtomicInteger queued;
+    private final AtomicLong bytes;
+    private final LongAdder hits, misses, evictions, expirations, rejections;
+
+    private volatile long generation;
+
+    MissCache(final AssetsRead delegate, final int maxEntries, final long lifetimeMs) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.lifetime = lifetimeMs > 0 ? lifetimeMs : Long.MAX_VALUE;
+
+        missed = new ConcurrentHashMap<>(256);
+        order = new ConcurrentLinkedQueue<>();
+        queued = new AtomicInteger(0);
+        bytes = new AtomicLong(0);
+        hits = new LongAdder();
+        misses = new LongAdder();
+        evictions = new LongAdder();
+        expirations = new LongAdder();
+        rejections = new LongAdder();
+        generation = delegate.generation();
+    }
+
+    @Override
+    public boolean canProcess(final String path) {
+        final long g = delegate.generation();
+
+        if (missing(path, g)) {
+            hits.increment();
+            return false;
+        }
+
+        if (delegate.canProcess(path))
+            return true; // apply() counts it
+
+        misses.increment();
+        remember(path, g);
+        return false;
+    }
+
+    @Override
+    public Response apply(final String path) {
+        return apply(path, null);
+    }
+
+    @Override
+    public Response apply(final String path, final Map<String, String> headers) {
+        final long g = delegate.generation();
+
+        if (counted(path, g))
+            return Response.NotFound();
+
+        final Response response = delegate.apply(path, headers);
+
+        if (response != null && response.getCode() == 404)
+            remember(path, g);
+
+        return response;
+    }
+
+    @Override
+    public Response apply(final RequestId id, final Map<String, String> headers) {
+        final long g = delegate.generation();
+
+        if (counted(id.path, g))
+            return Response.NotFound();
+
+        final Response response = delegate.apply(id, headers);
+
+        if (response != null && response.getCode() == 404)
+            remember(id.path, g);
+
+        return response;
+    }
+
+    @Override
+    public CacheStats cacheStats() {
+        return delegate.cacheStats();
+    }
+
+    @Override
+    public CacheStats missCacheStats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), rejections.sum(), missed.size(), bytes.get());
+    }
+
+    @Override
+    public long generation() {
+        return delegate.generation();
+    }
+
+    private boolean counted(final String path, final long g) {
+        final boolean missing = missing(path, g);
+
+        if (missing)
+            hits.increment();
+        else
+            misses.increment();
+
+        return missing;
+    }
+
+    private boolean missing(final String path, final long g) {
+        invalidate(g);
+
+        final Long expires = missed.get(path);
+
+        if (expires == null)
+            return false;
+
+        if (expires < System.currentTimeMillis()) {
+            if (missed.remove(path, expires)) {
+                bytes.addAndGet(-weight(path));
+                expirations.increment();
+            }
+
+            return false;
+        }
+
+        return true;
+    }
+
+    // g is the generation seen before the lookup, if anything was created since then the miss may be stale already
+    private void remember(final String path, final long g) {
+        if (g != delegate.generation())
+            return;
+
+        if (path.length() > maxKeyLength) {
+            rejections.increment();
+            return;
+        }
+
+        final long life = lifetime == Long.MAX_VALUE && !delegate.tracked(path) ? defaultLifetime : lifetime;
+
+        if (missed.put(path, life == Long.MAX_VALUE ? Long.MAX_VALUE : System.currentTimeMillis() + life) != null)
+            return;
+
+        bytes.addAndGet(weight(path));
+        order.add(path);
+        queued.incrementAndGet();
+
+        // stale queue items (expired, re-added) are bounded too, evicting by them is approximate
+        String oldest;
+        while ((missed.size() > maxEntries || queued.get() > 2L * maxEntries) && (oldest = order.poll()) != null) {
+            queued.decrementAndGet();
+
+            if (missed.remove(oldest) != null) {
+                bytes.addAndGet(-weight(oldest));
+                evictions.increment();
+            }
+        }
+    }
+
+    private void invalidate(final long g) {
+        if (g == generation)
+            return;
+
+        synchronized (this) {
+            if (g == generation)
+                return;
+
+            generation = g;
+            expirations.add(missed.size());
+            missed.clear();
+            order.clear();
+            queued.set(0);
+            bytes.set(0);
+        }
+    }
+
+    private static long weight(final String path) {
+        return path.length() * 2L + overhead;
+    }
+}
@@ -0,0 +1,144 @@
+package org.logdoc.fairhttp.service.http.statics;
+
+import org.logdoc.fairhttp.service.api.helpers.Headers;
+import org.logdoc.fairhttp.service.http.Response;
+import org.logdoc.helpers.Sporadics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 23:40
+ * fair-http-server ☭ sweat and blood
+ */
+final class Ranges {
+    static final String AcceptRanges = "Accept-Ranges", ContentRange = "Content-Range", Range = "Range", IfRange = "If-Range";
+    private static final int maxRanges = 16;
+
+    private Ranges() { }
+
+    // null - header is absent, malformed or too greedy and must be ignored, empty - nothing satisfiable
+    static List<long[]> parse(final String header, final long size) {
+        if (header == null || !header.trim().toLowerCase().startsWith("bytes="))
+            return null;
+
+        final String[] specs = header.trim().substring(6).split(",");
+        if (specs.length > maxRanges)
+            return null;
+
+        final List<long[]> ranges = new ArrayList<>(specs.length);
+
+        for (final String raw : specs) {
+            final String spec = raw.trim();
+            final int dash = spec.indexOf('-');
+
+            if (dash < 0)
+                return null;
+
+            try {
+                final long from, to;
+
+                if (dash == 0) { // suffix: last N bytes
+                    final long n = Long.parseLong(spec.substring(1).trim());
+                    if (n <= 0)
+                        continue;
+
+                    from = Math.max(0, size - n);
+                    to = size - 1;
+                } else {
+                    from = Long.parseLong(spec.substring(0, dash).trim());
+                    final String end = spec.substring(dash + 1).trim();
+                    final long last = end.isEmpty() ? Long.MAX_VALUE : Long.parseLong(end);
+
+                    if (last < from)
+                        return null;
+
+                    to = Math.min(size - 1, last);
+                }
+
+                if (from < size)
+                    ranges.add(new long[]{from, to});
+            } catch (final NumberFormatException e) {
+                return null;
+            }
+        }
+
+        return ranges;
+    }
+
+    static Response unsatisfiable(final long size) {
+        final Response response = new Response(416, "Range Not Satisfiable");
+        response.header(ContentRange, "bytes */" + size);
+
+        return response;
+    }
+
+    static Response partial(final List<long[]> ranges, final long size, final String mime, final Copier copier) {
+        if (ranges.size() == 1) {
+            final long from = ranges.get(0)[0], length = ranges.get(0)[1] - from + 1;
+            Response response = copier.slice(206, "Partial Content", from, length);
+
+            if (response == null) {
+                response = new Response(206, "Partial Content");
+                response.setPromise(os -> copy(copier, os, from, length));
+            }
+
+            response.header(Headers.ContentType, mime);
+            response.header(ContentRange, "bytes " + from + "-" + ranges.get(0)[1] + "/" + size);
+            response.header(Headers.ContentLength, length);
+
+            return response;
+        }
+
+        final Response response = new Response(206, "Partial Content");
+
+        final String boundary = Sporadics.generateUuid().toString().replace("-", "");
+        final List<byte[]> heads = new ArrayList<>(ranges.size());
+        final byte[] tail = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        long total = tail.length;
+
+        for (final long[] r : ranges) {
+            final byte[] head = ("\r\n--" + boundary + "\r\n" + Headers.ContentType + ": " + mime + "\r\n" + ContentRange + ": bytes " + r[0] + "-" + r[1] + "/" + size + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+            heads.add(head);
+            total += head.length + r[1] - r[0] + 1;
+        }
+
+        response.header(Headers.ContentType, "multipart/byteranges; boundary=" + boundary);
+        response.header(Headers.ContentLength, total);
+        response.setPromise(os -> {
+            try {
+                for (int i = 0; i < ranges.size(); i++) {
+                    os.write(heads.get(i));
+                    copy(copier, os, ranges.get(i)[0], ranges.get(i)[1] - ranges.get(i)[0] + 1);
+                }
+
+                os.write(tail);
+            } catch (final IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        return response;
+    }
+
+    private static void copy(final Copier copier, final OutputStream os, final long from, final long length) {
+        try {
+            copier.copy(os, from, length);
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    interface Copier {
+        void copy(OutputStream os, long from, long length) throws IOException;
+
+        // response with the region as a body, if the source can send it by itself
+        default Response slice(final int code, final String message, final long from, final long length) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package org.logdoc.fairhttp.service.http.statics;
+
+import org.logdoc.fairhttp.service.http.PreparedResponse;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 21:10
+ * fair-http-server ☭ sweat and blood
+ *
+ * Byte-budgeted W-TinyLFU cache: small LRU window in front of segmented LRU main space (probation/protected),
+ * window victims get into main space only if they are accessed more often than main space victim (count-min sketch with aging).
+ * Entries expire lazily on read.
+ * Lookups don't lock: reads are recorded into lossy striped buffers and replayed into the queues and the sketch under the lock
+ * by whoever gets it first - a writer, or a reader which filled its buffer up to half. Lost records only make LRU and frequencies a bit less exact.
+ */
+final class StaticCache {
+    private static final int overhead = 128; // node, template and key refs, roughly
+
+    private final ConcurrentHashMap<String, Node> map;
+    private final Queue window, probation, protect;
+    private final Sketch sketch;
+    private final ReadBuffer[] reads;
+    private final ReentrantLock lock;
+    private final long windowMax, mainMax, protectMax, lifetime;
+
+    private final LongAdder hits, misses, expirations;
+    private long evictions, rejections;
+
+    StaticCache(final long maxTotalSize, final long lifetimeMs) {
+        windowMax = Math.max(1, maxTotalSize / 100);
+        mainMax = Math.max(1, maxTotalSize - windowMax);
+        protectMax = mainMax * 8 / 10;
+        lifetime = lifetimeMs;
+
+        map = new ConcurrentHashMap<>(256);
+        window = new Queue();
+        probation = new Queue();
+        protect = new Queue();
+        sketch = new Sketch((int) Math.max(256, Math.min(1 << 20, maxTotalSize / 8192)));
+        lock = new ReentrantLock();
+        hits = new LongAdder();
+        misses = new LongAdder();
+        expirations = new LongAdder();
+
+        reads = new ReadBuffer[Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1];
+        for (int i = 0; i < reads.length; i++)
+            reads[i] = new ReadBuffer();
+    }
+
+    PreparedResponse.Template get(final String key) {
+        final Node node = map.get(key);
+
+        if (node == null) {
+            misses.increment();
+            record(key);
+            return null;
+        }
+
+        if (node.expires < System.currentTimeMillis()) {
+            if (map.remove(key, node)) {
+                expirations.increment();
+
+                lock.lock();
+                try {
+                    unlink(node);
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            misses.increment();
+            record(key);
+            return null;
+        }
+
+        hits.increment();
+        record(node);
+
+        return node.entry;
+    }
+
+    void put(final String key, final PreparedResponse.Template entry) {
+        final long weight = entry.weight() + key.length() * 2L + overhead;
+
+        lock.lock();
+        try {
+            drain();
+
+            if (weight > windowMax + mainMax) {
+                rejections++;
+                return;
+            }
+
+            final Node existed = map.remove(key);
+            if (existed != null)
+                unlink(existed);
+
+            final Node node = new Node(key, entry, weight, System.currentTimeMillis() + lifetime);
+            map.put(key, node);
+            window.add(node);
+
+            while (window.bytes > windowMax && window.head != null) {
+                final Node candidate = window.head;
+                window.remove(candidate);
+                admit(candidate);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // whether an entry with a body of that size would get into main space now, so callers don't build entries which are dropped at once
+    boolean keeps(final String key, final long bodySize) {
+        final long weight = bodySize + key.length() * 2L + overhead + 512; // head is a few hundred bytes
+
+        if (weight > mainMax)
+            return false;
+
+        lock.lock();
+        try {
+            drain();
+
+            if (probation.bytes + protect.bytes + weight <= mainMax)
+                return true;
+
+            final Node victim = probation.head != null ? probation.head : protect.head;
+
+            return victim != null && sketch.frequency(key.hashCode()) > sketch.frequency(victim.key.hashCode());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    CacheStats stats() {
+        lock.lock();
+        try {
+            return new CacheStats(hits.sum(), misses.sum(), evictions, expirations.sum(), rejections, map.size(), window.bytes + probation.bytes + protect.bytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // key (miss) or node (hit) goes to the thread's buffer, dropped if it is full
+    private void record(final Object read) {
+        final ReadBuffer buffer = reads[(int) Thread.currentThread().getId() & (reads.length - 1)];
+
+        if (buffer.offer(read) >= ReadBuffer.size / 2 && lock.tryLock())
+            try {
+                drain();
+            } finally {
+                lock.unlock();
+            }
+    }
+
+    // under the lock
+    private void drain() {
+        for (final ReadBuffer buffer : reads)
+            buffer.drain(this::replay);
+    }
+
+    private void replay(final Object read) {
+        if (read instanceof Node) {
+            final Node node = (Node) read;
+            sketch.increment(node.key.hashCode());
+
+            if (node.queue != null) // may be gone since
+                touch(node);
+        } else
+            sketch.increment(read.hashCode());
+    }
+
+    // one frequency duel against the main space LRU victim decides, evictions happen only after the candidate has won
+    private void admit(final Node candidate) {
+        if (probation.bytes + protect.bytes + candidate.weight > mainMax) {
+            final Node victim = probation.head != null ? probation.head : protect.head;
+
+            if (candidate.weight > mainMax || victim == null || sketch.frequency(candidate.key.hashCode()) <= sketch.frequency(victim.key.hashCode())) {
+                map.remove(candidate.key, candidate);
+                rejections++;
+                return;
+            }
+
+            // main space holds at least candidate's weight now, so the loop always makes room
+            while (probation.bytes + protect.bytes + candidate.weight > mainMax) {
+                final Node evicted = probation.head != null ? probation.head : protect.head;
+
+                unlink(evicted);
+                map.remove(evicted.key, evicted);
+                evictions++;
+            }
+        }
+
+        probation.add(candidate);
+    }
+
+    private void touch(final Node node) {
+        if (node.queue == protect || node.queue == window) {
+            final Queue queue = node.queue;
+            queue.remove(node);
+            queue.add(node);
+            return;
+        }
+
+        probation.remove(node);
+        protect.add(node);
+
+        while (protect.bytes > protectMax && protect.head != null) {
+            final Node demoted = protect.head;
+            protect.remove(demoted);
+            probation.add(demoted);
+        }
+    }
+
+    private void unlink(final Node node) {
+        if (node.queue != null)
+            node.queue.remove(node);
+    }
+
+    private static final class Node {
+        final String key;
+        final PreparedResponse.Template entry;
+        final long weight, expires;
+        Node prev, next;
+        Queue queue;
+
+        Node(final String key, final PreparedResponse.Template entry, final long weight, final long expires) {
+            this.key = key;
+            this.entry = entry;
+            this.weight = weight;
+            this.expires = expires;
+        }
+    }
+
+    private static final class Queue {
+        Node head, tail;
+        long bytes;
+
+        void add(final Node node) {
+            node.queue = this;
+            node.prev = tail;
+            node.next = null;
+
+            if (tail == null)
+                head = node;
+            else
+                tail.next = node;
+
+            tail = node;
+            bytes += node.weight;
+        }
+
+        void remove(final Node node) {
+            if (node.prev == null)
+                head = node.next;
+            else
+                node.prev.next = node.next;
+
+            if (node.next == null)
+                tail = node.prev;
+            else
+                node.next.prev = node.prev;
+
+            node.prev = node.next = null;
+            node.queue = null;
+            bytes -= node.weight;
+        }
+    }
+
+    // bounded ring of reads, many writers, one drainer under the cache lock
+    private static final class ReadBuffer {
+        static final int size = 32;
+
+        private final AtomicReferenceArray<Object> ring = new AtomicReferenceArray<>(size);
+        private final AtomicLong written = new AtomicLong(0);
+        private volatile long drained;
+
+        // pending records after the offer, the record is lost if the ring is full or contended
+        long offer(final Object read) {
+            final long w = written.get(), pending = w - drained;
+
+            if (pending >= size || !written.compareAndSet(w, w + 1))
+                return pending;
+
+            ring.lazySet((int) (w & (size - 1)), read);
+            return pending + 1;
+        }
+
+        void drain(final Consumer<Object> replay) {
+            long d = drained;
+            final long w = written.get();
+
+            for (Object read; d < w && (read = ring.get((int) (d & (size - 1)))) != null; d++) {
+                ring.lazySet((int) (d & (size - 1)), null);
+                replay.accept(read);
+            }
+
+            drained = d;
+        }
+    }
+
+    // count-min sketch, 4 rows of 4-bit counters, halved every 10 * width increments
+    private static final class Sketch {
+        private static final long[] seeds = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+        private final long[] table;
+        private final int mask, sampleSize;
+        private int additions;
+
+        Sketch(final int width) {
+            final int w = Integer.highestOneBit(width - 1) << 1;
+
+            table = new long[w];
+            mask = w - 1;
+            sampleSize = 10 * w;
+        }
+
+        int frequency(final int hash) {
+            int min = 15;
+
+            for (int i = 0; i < 4; i++)
+                min = Math.min(min, (int) ((table[index(hash, i)] >>> shift(hash, i)) & 0xF));
+
+            return min;
+        }
+
+        void increment(final int hash) {
+            boolean added = false;
+
+            for (int i = 0; i < 4; i++) {
+                final int idx = index(hash, i), sh = shift(hash, i);
+
+                if (((table[idx] >>> sh) & 0xF) < 15) {
+                    table[idx] += 1L << sh;
+                    added = true;
+                }
+            }
+
+            if (added && ++additions >= sampleSize) {
+                for (int i = 0; i < table.length; i++)
+                    table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+
+                additions /= 2;
+            }
+        }
+
+        private int index(final int hash, final int row) {
+            long h = (hash + seeds[row]) * seeds[row];
+            h ^= h >>> 32;
+
+            return (int) h & mask;
+        }
+
+        private static int shift(final int hash, final int row) {
+            return (((hash >>> (row << 3)) & 3) << 2) + (row << 4);
+        }
+    }
+}
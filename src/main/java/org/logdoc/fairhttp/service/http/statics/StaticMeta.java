@@ -0,0 +1,280 @@
+package org.logdoc.fairhttp.service.http.statics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 14:05
+ * fair-http-server ☭ sweat and blood
+ */
+final class StaticMeta {
+    private static final Logger logger = LoggerFactory.getLogger(StaticMeta.class);
+
+    private final Path root;
+    private final int maxEntries;
+    private final long lifetime;
+    private final Consumer<String> onChange;
+
+    private final ConcurrentHashMap<String, Meta> metas;
+    private final Map<WatchKey, Path> keys;
+    private final Set<String> unwatched;
+    private final AtomicLong epoch, created;
+    private final AtomicBoolean trimming;
+    private final String separator;
+    private final boolean watching;
+
+    StaticMeta(final Path root, final boolean enabled, final int maxEntries, final long lifetime, final Consumer<String> onChange) {
+        this.root = root.toAbsolutePath().normalize();
+        this.maxEntries = maxEntries;
+        this.onChange = onChange;
+
+        metas = new ConcurrentHashMap<>(256);
+        keys = new ConcurrentHashMap<>(64);
+        unwatched = ConcurrentHashMap.newKeySet();
+        trimming = new AtomicBoolean(false);
+        separator = this.root.getFileSystem().getSeparator();
+        epoch = new AtomicLong(0);
+        created = new AtomicLong(0);
+
+        WatchService ws = null;
+        if (enabled)
+            try {
+                ws = this.root.getFileSystem().newWatchService();
+                register(ws, this.root);
+            } catch (final Exception e) {
+                logger.warn("Static root " + this.root + " can not be watched, metadata will be re-read " + (lifetime > 0 ? "every " + lifetime + " ms" : "on every request") + ": " + e.getMessage());
+
+                if (ws != null)
+                    try {
+                        ws.close();
+                    } catch (final IOException ignore) {
+                    }
+
+                ws = null;
+            }
+
+        watching = ws != null;
+        this.lifetime = enabled && (watching || lifetime > 0) ? lifetime : -1;
+
+        if (watching) {
+            final WatchService service = ws;
+            final Thread t = new Thread(() -> watch(service), "static-watch");
+            t.setDaemon(true);
+            t.start();
+
+            logger.info("Static metadata cache is enabled for " + this.root + ", " + keys.size() + " folders watched, up to " + maxEntries + " entries" + (lifetime > 0 ? ", entries live " + lifetime + " ms" : "") + ".");
+        } else if (!enabled)
+            logger.info("Static metadata cache is disabled");
+    }
+
+    // relative name in platform separators, already normalized
+    Meta lookup(final String name) {
+        if (lifetime < 0)
+            return stat(name);
+
+        final boolean watched = watched(name);
+        if (!watched && lifetime == 0) // nobody will tell us it changed and it must not live forever
+            return stat(name);
+
+        final long now = System.currentTimeMillis();
+        Meta m = metas.get(name);
+
+        if (m != null && (lifetime == 0 || m.checked + lifetime > now)) {
+            m.used = now;
+            return m;
+        }
+
+        final long e = epoch.get();
+        m = stat(name);
+
+        if (!m.exists) { // misses are remembered by MissCache, here they'd only crowd out real files
+            metas.remove(name);
+            return m;
+        }
+
+        metas.put(name, m);
+
+        if (e != epoch.get()) // something changed while we were reading, don't trust it
+            metas.remove(name, m);
+        else if (metas.size() > maxEntries)
+            trim();
+
+        return m;
+    }
+
+    // approximate LRU: the least recently used tenth is dropped at once, one trimmer at a time
+    private void trim() {
+        if (!trimming.compareAndSet(false, true))
+            return;
+
+        try {
+            final int drop = metas.size() - maxEntries + Math.max(1, maxEntries / 10);
+            if (drop <= 0)
+                return;
+
+            final List<Map.Entry<String, Long>> usage = new ArrayList<>(metas.size());
+            metas.forEach((k, v) -> usage.add(new AbstractMap.SimpleImmutableEntry<>(k, v.used)));
+            usage.sort(Map.Entry.comparingByValue());
+
+            for (int i = 0; i < drop && i < usage.size(); i++)
+                metas.remove(usage.get(i).getKey());
+        } finally {
+            trimming.set(false);
+        }
+    }
+
+    private boolean watched(final String name) {
+        if (unwatched.isEmpty())
+            return true;
+
+        for (final String folder : unwatched)
+            if (name.equals(folder) || name.startsWith(folder + separator))
+                return false;
+
+        return true;
+    }
+
+    Path path(final String name) {
+        return root.resolve(name);
+    }
+
+    // counts appearances of new paths, -1 if we can't see them
+    long generation() {
+        return watching ? created.get() : -1;
+    }
+
+    // whether a new file at name shows up in generation(): not below unwatched folders, and not if lifetime is set -
+    // then the root may change behind our back (network fs)
+    boolean tracked(final String name) {
+        return watching && lifetime == 0 && watched(name);
+    }
+
+    private Meta stat(final String name) {
+        final Path p = root.resolve(name).normalize();
+
+        if (!p.startsWith(root))
+            return new Meta(false, false, -1, 0);
+
+        try {
+            final BasicFileAttributes attrs = Files.readAttributes(p, BasicFileAttributes.class);
+
+            return new Meta(true, attrs.isDirectory(), attrs.isDirectory() ? 0 : attrs.size(), attrs.lastModifiedTime().toMillis());
+        } catch (final IOException e) {
+            return new Meta(false, false, -1, 0);
+        }
+    }
+
+    private void register(final WatchService ws, final Path dir) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path d, final BasicFileAttributes attrs) throws IOException {
+                try {
+                    keys.put(d.register(ws, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), d);
+                    unwatched.remove(root.relativize(d).toString());
+                } catch (final IOException e) {
+                    if (d.equals(root))
+                        throw e;
+
+                    unwatched(d, e);
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(final Path file, final IOException exc) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    // changes below it go unnoticed, so its entries fall back to expiry or plain stat
+    private void unwatched(final Path dir, final IOException e) {
+        final String name = root.relativize(dir).toString();
+
+        unwatched.add(name);
+        metas.keySet().removeIf(k -> k.equals(name) || k.startsWith(name + separator));
+
+        logger.warn("Can't watch static folder " + dir + ", its metadata will only be re-read on expiry or on every request: " + e.getMessage());
+    }
+
+    private void watch(final WatchService ws) {
+        while (!Thread.currentThread().isInterrupted()) {
+            final WatchKey key;
+
+            try {
+                key = ws.take();
+            } catch (final InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            final Path dir = keys.get(key);
+            final List<WatchEvent<?>> events = key.pollEvents();
+
+            if (dir != null)
+                for (final WatchEvent<?> ev : events) {
+                    epoch.incrementAndGet();
+
+                    if (ev.kind() == OVERFLOW) {
+                        created.incrementAndGet();
+                        metas.clear();
+                        onChange.accept(null);
+                        continue;
+                    }
+
+                    final Path child = dir.resolve((Path) ev.context());
+                    final String name = root.relativize(child).toString();
+
+                    if (ev.kind() == ENTRY_CREATE)
+                        created.incrementAndGet();
+
+                    metas.remove(name);
+                    metas.remove(root.relativize(dir).toString()); // folder listing and index resolution
+                    onChange.accept(name);
+
+                    if (ev.kind() != ENTRY_MODIFY) { // whole subtree appeared or gone, including lookups made before it existed
+                        final String sub = name + child.getFileSystem().getSeparator();
+                        metas.keySet().removeIf(k -> k.startsWith(sub));
+                    }
+
+                    if (ev.kind() == ENTRY_CREATE && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS))
+                        try {
+                            register(ws, child);
+                        } catch (final IOException e) {
+                            unwatched(child, e);
+                        }
+                }
+
+            if (!key.reset())
+                keys.remove(key);
+        }
+    }
+
+    static final class Meta {
+        final boolean exists, folder;
+        final long size, modified, checked;
+
+        volatile String mime;
+        volatile long used;
+
+        Meta(final boolean exists, final boolean folder, final long size, final long modified) {
+            this.exists = exists;
+            this.folder = folder;
+            this.size = size;
+            this.modified = modified;
+            this.checked = used = System.currentTimeMillis();
+        }
+    }
+}
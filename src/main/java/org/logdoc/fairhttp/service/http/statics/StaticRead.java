@@ -2,23 +2,27 @@ package org.logdoc.fairhttp.service.http.statics;
 
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigException;
-import org.logdoc.fairhttp.service.DI;
+import org.logdoc.fairhttp.service.api.helpers.Headers;
+import org.logdoc.fairhttp.service.http.PreparedResponse;
 import org.logdoc.fairhttp.service.http.Response;
-import org.logdoc.helpers.Sporadics;
 import org.logdoc.helpers.std.MimeType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.charset.StandardCharsets;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.time.Duration;
-import java.time.LocalDateTime;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 import static org.logdoc.fairhttp.service.tools.ConfigTools.*;
 import static org.logdoc.helpers.Texts.isEmpty;
@@ -30,28 +34,31 @@ import static org.logdoc.helpers.Texts.isEmpty;
  */
 abstract class StaticRead implements AssetsRead {
     protected final static Logger logger = LoggerFactory.getLogger(StaticRead.class);
-    private static final DateTimeFormatter format = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
     private final static String autoIdxPrm = "auto_index", indexesPrm = "index_files", cachePrm = "memory_cache", mimesPrm = "mime_types",
-            cacheEnblPrm = "enabled", cacheSizePrm = "max_file_size", cacheLifePrm = "lifetime",
-            mimeMimePrm = "mime", mimeExtPrm = "ext";
+            cacheEnblPrm = "enabled", cacheSizePrm = "max_file_size", cacheLifePrm = "lifetime", cacheTotalPrm = "max_total_size",
+            mimeMimePrm = "mime", mimeExtPrm = "ext",
+            compressPrm = "compression", comprEnblPrm = "enabled", comprPrePrm = "precompressed", comprMinPrm = "min_size", comprMaxPrm = "max_size", comprTypesPrm = "mime_types";
+    protected static final String GZIP = "gzip", BROTLI = "br", ETag = "ETag", LastModified = "Last-Modified", IfNoneMatch = "If-None-Match", IfModifiedSince = "If-Modified-Since";
+    private static final List<String> defaultCompressible = Arrays.asList("text/", "application/javascript", "application/json", "application/xml", "application/xhtml+xml", "image/svg+xml", "application/wasm");
 
     protected final boolean autoDirList, gotIndex;
     protected final Set<String> indexFile;
     protected final boolean cache;
-    protected final long maxCacheSize, maxCacheLife;
+    protected final long maxCacheSize, maxCacheLife, maxCacheTotal;
 
-    private final ConcurrentMap<String, String> mimes;
-    private final ConcurrentMap<String, Response> cachedMap;
-    private final ConcurrentMap<String, ScheduledFuture<?>> futuresMap;
+    protected final boolean compress, precompressed;
+    protected final long compressMin, compressMax;
+    private final List<String> compressible;
 
-    protected final String namedRef;
+    private final ConcurrentMap<String, String> mimes;
+    private final ConcurrentMap<String, Boolean> variants;
+    private final StaticCache cached;
 
     protected StaticRead(final Config staticCfg) {
-        namedRef = Sporadics.generateUuid().toString();
-
         try {
             indexFile = new HashSet<>(3);
             mimes = new ConcurrentHashMap<>(8);
+            variants = new ConcurrentHashMap<>(64);
 
             autoDirList = sureBool(staticCfg, autoIdxPrm);
 
@@ -71,40 +78,61 @@ abstract class StaticRead implements AssetsRead {
 
             final Config cacheCfg = sureConf(staticCfg, cachePrm);
 
-            long cs = 0, cl = 0;
+            long cs = 0, cl = 0, ct = 0;
             if (cacheCfg != null) {
                 cache = sureBool(cacheCfg, cacheEnblPrm);
 
                 if (cache) {
                     cs = 512 * 1024;
                     cl = Duration.of(3, ChronoUnit.MINUTES).toMillis();
+                    ct = 64 * 1024 * 1024;
 
                     if (sureNN(cacheCfg, cacheLifePrm))
                         cl = cacheCfg.getDuration(cacheLifePrm, TimeUnit.MILLISECONDS);
 
                     if (sureNN(cacheCfg, cacheSizePrm))
                         cs = cacheCfg.getBytes(cacheSizePrm);
+
+                    if (sureNN(cacheCfg, cacheTotalPrm))
+                        ct = cacheCfg.getBytes(cacheTotalPrm);
                 }
             } else
                 cache = false;
 
             maxCacheSize = cs;
             maxCacheLife = cl;
+            maxCacheTotal = ct;
 
             if (cache) {
-                final ScheduledExecutorService ses = Executors.newScheduledThreadPool(Math.min(6, Math.max(2, Runtime.getRuntime().availableProcessors() / 2)));
-                DI.bindProvider(namedRef, ScheduledExecutorService.class, () -> ses);
-                cachedMap = new ConcurrentHashMap<>(64);
-                futuresMap = new ConcurrentHashMap<>(64);
+                cached = new StaticCache(maxCacheTotal, maxCacheLife);
 
-                logger.info("Static caching is enabled for files smaller or equal to " + maxCacheSize + " bytes for a period of " + Duration.of(maxCacheLife, ChronoUnit.MILLIS).toSeconds() + " seconds.");
+                logger.info("Static caching is enabled for files smaller or equal to " + maxCacheSize + " bytes for a period of " + Duration.of(maxCacheLife, ChronoUnit.MILLIS).toSeconds() + " seconds, total cache size is " + maxCacheTotal + " bytes.");
             } else {
-                cachedMap = null;
-                futuresMap = null;
+                cached = null;
 
                 logger.info("Static caching is disabled");
             }
 
+            final Config comprCfg = sureConf(staticCfg, compressPrm);
+
+            if (comprCfg != null && sureBool(comprCfg, comprEnblPrm)) {
+                compress = cache;
+                precompressed = !comprCfg.hasPath(comprPrePrm) || comprCfg.getBoolean(comprPrePrm);
+                compressMin = sureNN(comprCfg, comprMinPrm) ? comprCfg.getBytes(comprMinPrm) : 1024;
+                compressMax = sureNN(comprCfg, comprMaxPrm) ? comprCfg.getBytes(comprMaxPrm) : 8 * 1024 * 1024;
+
+                final List<String> types = sureStrings(comprCfg, comprTypesPrm);
+                compressible = isEmpty(types) ? defaultCompressible : types.stream().map(t -> t.trim().toLowerCase()).collect(Collectors.toList());
+
+                logger.info("Static compression: precompressed variants are " + (precompressed ? "en" : "dis") + "abled, on the fly gzip is " + (compress ? "enabled for " + compressible + " of " + compressMin + " to " + compressMax + " bytes" : "disabled" + (cache ? "" : " (requires memory_cache)")) + ".");
+            } else {
+                compress = precompressed = false;
+                compressMin = compressMax = 0;
+                compressible = Collections.emptyList();
+
+                logger.info("Static compression is disabled");
+            }
+
             if (sureNN(staticCfg, mimesPrm)) {
                 final List<? extends Config> mcfgs = staticCfg.getConfigList(mimesPrm);
 
@@ -134,35 +162,220 @@ abstract class StaticRead implements AssetsRead {
         }
     }
 
-    protected byte[] dirList(final String dirName, final Collection<FRes> content) {
-        final StringBuilder html = new StringBuilder("<html><head><title>Index of " + dirName + "</title></head><body><h1>Index of " + dirName + "</h1><hr><pre><a href=\"../\">../</a>\n");
+    protected boolean cacheable(final long size) {
+        return cache && size > 0 && size <= maxCacheSize;
+    }
 
-        content.stream().sorted()
-                .forEach(f -> {
-                    final boolean i = !f.isFile;
-                    final String n = f.name + (i ? "/" : "");
-                    final String d = f.time.format(format); // 17
-                    final String l = i ? "-" : Long.toString(f.size);
+    // cache would keep the entry, only then its body is worth a direct buffer; otherwise the resource is streamed
+    protected boolean kept(final String id, final long size) {
+        return cache && cached.keeps(id, size);
+    }
 
-                    html.append("<a href='").append((dirName + "/" + n).replaceAll("/{2,}", "/")).append("'>").append(n).append("</a>").append(" ".repeat(Math.max(0, (51 - n.length())))).append(d).append(" ".repeat(Math.max(0, 20 - l.length()))).append(l).append("\n");
-                });
+    protected Response cacheMe(final String id, final ByteBuffer body, final String mime, final boolean vary, final String etag, final long modified) {
+        final Response head = Response.Ok();
+        head.header(Headers.ContentType, mime);
+        head.header(Headers.ContentLength, body.remaining());
+        head.header(Ranges.AcceptRanges, "bytes");
+        validators(head, etag, modified);
+        if (vary)
+            head.header(Headers.Vary, Headers.AcceptEncoding);
 
-        html.append("</pre><hr></body></html>");
+        final PreparedResponse.Template template = PreparedResponse.prepare(head, body);
+        cached.put(id, template);
 
-        return html.toString().getBytes(StandardCharsets.UTF_8);
+        return template.response();
     }
 
-    protected void cacheMe(final String id, final Response response) {
-        if (!cache || response == null || response.size() <= 0 || response.size() > maxCacheSize)
+    protected abstract InputStream open(String name) throws IOException;
+
+    protected abstract long length(String name);
+
+    // 200 with the whole resource as a body, read on write
+    protected Response stream(final String name, final long length) {
+        final Response response = Response.Ok();
+        response.header(Headers.ContentLength, length);
+        response.setPromise(os -> {
+            try (final InputStream is = open(name)) {
+                if (is != null)
+                    is.transferTo(os);
+            } catch (final Exception e) {
+                logger.error(name + " :: " + e.getMessage(), e);
+            }
+        });
+
+        return response;
+    }
+
+    // accepted encodings we may serve, most preferred first
+    protected List<String> encodings(final Map<String, String> headers) {
+        if ((!compress && !precompressed) || headers == null)
+            return Collections.emptyList();
+
+        final String accept = headers.get(Headers.AcceptEncoding);
+        if (isEmpty(accept))
+            return Collections.emptyList();
+
+        // explicitly listed coding (accepted or refused with q=0) wins over the wildcard
+        Boolean br = null, gzip = null, any = null;
+
+        for (final String part : accept.split(",")) {
+            final String[] pair = part.split(";");
+            final String coding = pair[0].trim().toLowerCase();
+            boolean ok = true;
+
+            if (pair.length > 1) {
+                final String q = pair[1].trim();
+                if (q.startsWith("q=") && q.substring(2).trim().matches("0(\\.0*)?"))
+                    ok = false;
+            }
+
+            if (coding.equals(BROTLI))
+                br = ok;
+            else if (coding.equals(GZIP))
+                gzip = ok;
+            else if (coding.equals("*"))
+                any = ok;
+        }
+
+        final boolean brOk = precompressed && (br != null ? br : Boolean.TRUE.equals(any));
+        final boolean gzipOk = gzip != null ? gzip : Boolean.TRUE.equals(any);
+
+        if (brOk && gzipOk) return Arrays.asList(BROTLI, GZIP);
+        if (brOk) return Collections.singletonList(BROTLI);
+        if (gzipOk) return Collections.singletonList(GZIP);
+
+        return Collections.emptyList();
+    }
+
+    // id has (or may have) encoded variants, so any of its responses must carry Vary
+    protected boolean hasVariants(final String id, final String name, final String mime, final long size) {
+        if (!compress && !precompressed)
+            return false;
+
+        return variants.computeIfAbsent(id, unused -> (compress && compressible(mime, size)) || (precompressed && (length(name + ".gz") >= 0 || length(name + ".br") >= 0)));
+    }
+
+    protected boolean plain(final String id) {
+        return Boolean.FALSE.equals(variants.get(id));
+    }
+
+    // id or its precompressed sibling changed on disk, null means everything
+    protected void forget(final String id) {
+        if (id == null) {
+            variants.clear();
             return;
+        }
 
-        if (futuresMap.get(id) != null)
-            try {
-                futuresMap.remove(id).cancel(true);
-            } catch (final Exception ignore) {
+        variants.remove(id);
+
+        if (id.endsWith(".gz") || id.endsWith(".br"))
+            variants.remove(id.substring(0, id.length() - 3));
+    }
+
+    // collapses repeated slashes, drops the leading and trailing ones and switches to the given separator
+    protected static String normalize(final String webpath, final char separator) {
+        final StringBuilder sb = new StringBuilder(webpath.length());
+        char prev = '/';
+
+        for (int i = 0; i < webpath.length(); i++) {
+            final char c = webpath.charAt(i);
+
+            if (c == '/') {
+                if (prev != '/')
+                    sb.append(separator);
+            } else
+                sb.append(c);
+
+            prev = c;
+        }
+
+        if (sb.length() > 0 && prev == '/')
+            sb.setLength(sb.length() - 1);
+
+        return sb.toString();
+    }
+
+    protected Response encoded(final String id, final String name, final List<String> encodings, final String mime, final long size, final String etag, final long modified) throws IOException {
+        if (encodings.isEmpty() || !hasVariants(id, name, mime, size))
+            return null;
+
+        for (final String enc : encodings) {
+            final Response response = pickCached(id + '|' + enc, etag(etag, enc));
+
+            if (response != null)
+                return response;
+        }
+
+        for (final String enc : encodings) {
+            if (precompressed) {
+                final String sibling = name + (enc.equals(GZIP) ? ".gz" : ".br");
+                final long length = length(sibling);
+
+                if (length >= 0) {
+                    if (cacheable(length) && kept(id + '|' + enc, length))
+                        try (final InputStream is = open(sibling)) {
+                            if (is != null)
+                                return encodedMe(id, enc, is.readAllBytes(), mime, etag, modified);
+                        }
+
+                    final Response response = stream(sibling, length);
+                    response.header(Headers.ContentType, mime);
+                    response.header(Headers.Encoding, enc);
+                    response.header(Headers.Vary, Headers.AcceptEncoding);
+                    validators(response, etag(etag, enc), modified);
+
+                    return response;
+                }
             }
-        cachedMap.put(id, response);
-        futuresMap.put(id, DI.gain(namedRef, ScheduledExecutorService.class).schedule(() -> cachedMap.remove(id), maxCacheLife, TimeUnit.MILLISECONDS));
+
+            // gzip result is the cache entry, if the cache wouldn't keep it the identity body goes instead of compressing on every request
+            if (enc.equals(GZIP) && compress && compressible(mime, size) && kept(id + '|' + enc, size))
+                try (final InputStream is = open(name); final ByteArrayOutputStream bos = new ByteArrayOutputStream((int) Math.max(1024, size / 3))) {
+                    if (is == null)
+                        return null;
+
+                    try (final GZIPOutputStream gz = new GZIPOutputStream(bos, 64 * 1024)) {
+                        is.transferTo(gz);
+                    }
+
+                    final byte[] data = bos.toByteArray();
+
+                    if (data.length < size)
+                        return encodedMe(id, enc, data, mime, etag, modified);
+                }
+        }
+
+        return null;
+    }
+
+    private Response encodedMe(final String id, final String encoding, final byte[] data, final String mime, final String etag, final long modified) {
+        final Response head = Response.Ok();
+        head.header(Headers.ContentType, mime);
+        head.header(Headers.Encoding, encoding);
+        head.header(Headers.Vary, Headers.AcceptEncoding);
+        head.header(Headers.ContentLength, data.length);
+        validators(head, etag(etag, encoding), modified);
+
+        final ByteBuffer body = ByteBuffer.allocateDirect(data.length);
+        body.put(data).flip();
+
+        final PreparedResponse.Template template = PreparedResponse.prepare(head, body);
+        // compressed variant is worth keeping even above max_file_size, total budget still applies; callers have checked kept()
+        cached.put(id + '|' + encoding, template);
+
+        return template.response();
+    }
+
+    private boolean compressible(final String mime, final long size) {
+        if (size < compressMin || size > compressMax || isEmpty(mime))
+            return false;
+
+        final String m = mime.toLowerCase();
+        for (final String type : compressible)
+            if (m.startsWith(type))
+                return true;
+
+        return false;
     }
 
     protected String getMime(final String ext) {
@@ -180,23 +393,97 @@ abstract class StaticRead implements AssetsRead {
         mimes.put(id, mime);
     }
 
-    protected Response pickCached(final String id) {
-        return cache ? cachedMap.get(id) : null;
+    // cached entry is valid only while its validator matches the one of the current resource
+    protected Response pickCached(final String id, final String etag) {
+        if (!cache)
+            return null;
+
+        final PreparedResponse.Template template = cached.get(id);
+
+        return template == null || !Objects.equals(etag, template.header(ETag)) ? null : template.response();
+    }
+
+    protected static String etag(final long size, final long modified) {
+        return "\"" + Long.toHexString(size) + "-" + Long.toHexString(modified) + "\"";
+    }
+
+    private static String etag(final String identity, final String encoding) {
+        return identity.substring(0, identity.length() - 1) + "-" + encoding + "\"";
     }
 
-    protected static class FRes implements Comparable<FRes> {
-        boolean exists;
-        String name;
-        long size;
-        boolean isFile;
-        LocalDateTime time;
+    protected static void validators(final Response response, final String etag, final long modified) {
+        response.header(ETag, etag);
+        response.header(LastModified, DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(modified).atOffset(ZoneOffset.UTC)));
+    }
+
+    // 304 if request validators match, checked before any content is touched
+    protected Response notModified(final Map<String, String> headers, final String id, final String etag, final long modified) {
+        if (headers == null)
+            return null;
+
+        final String inm = headers.get(IfNoneMatch), ims = headers.get(IfModifiedSince);
+        String matched = null;
+
+        if (!isEmpty(inm)) {
+            final String prefix = etag.substring(0, etag.length() - 1);
+
+            for (final String raw : inm.split(",")) {
+                final String tag = raw.trim().startsWith("W/") ? raw.trim().substring(2) : raw.trim();
+
+                if (tag.equals("*") || tag.equals(etag) || (tag.startsWith(prefix + "-") && tag.endsWith("\""))) {
+                    matched = tag.equals("*") ? etag : tag;
+                    break;
+                }
+            }
+
+            if (matched == null)
+                return null;
+        } else if (!isEmpty(ims))
+            try {
+                if (modified / 1000L > ZonedDateTime.parse(ims.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond())
+                    return null;
+
+                matched = etag;
+            } catch (final Exception ignore) {
+                return null;
+            }
+        else
+            return null;
+
+        final Response response = new Response(304, "Not Modified");
+        validators(response, matched, modified);
+
+        if (Boolean.TRUE.equals(variants.get(id)))
+            response.header(Headers.Vary, Headers.AcceptEncoding);
+
+        return response;
+    }
+
+    // 206/416 for a satisfiable or not Range request, null if full content should be sent
+    protected Response ranged(final Map<String, String> headers, final String etag, final long modified, final long size, final String mime, final Ranges.Copier copier) {
+        if (headers == null || size <= 0)
+            return null;
 
-        @Override
-        public int compareTo(final FRes o) {
-            final int res = Boolean.compare(isFile, o.isFile);
+        final List<long[]> ranges = Ranges.parse(headers.get(Ranges.Range), size);
+        if (ranges == null)
+            return null;
+
+        final String ifRange = headers.get(Ranges.IfRange);
+        if (!isEmpty(ifRange)) {
+            final String v = ifRange.trim();
 
-            return res == 0 ? name.compareTo(o.name) : res;
+            if (v.startsWith("\"") || v.startsWith("W/") ? !v.equals(etag) : !v.equals(DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(modified).atOffset(ZoneOffset.UTC))))
+                return null;
         }
+
+        final Response response = ranges.isEmpty() ? Ranges.unsatisfiable(size) : Ranges.partial(ranges, size, mime, copier);
+        validators(response, etag, modified);
+
+        return response;
     }
-}
 
+    @Override
+    public CacheStats cacheStats() {
+        return cache ? cached.stats() : null;
+    }
+}
@@ -0,0 +1,43 @@
+package org.logdoc.fairhttp.service.tools;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 23:40
+ * fair-http-server ☭ sweat and blood
+ */
+public final class BulkResult {
+    public final long rows, affected, unreported; // unreported - statements that succeeded, but the driver gave no row count
+    private final long[] batchNanos;
+
+    BulkResult(final long rows, final long affected, final long unreported, final long[] batchNanos) {
+        this.rows = rows;
+        this.affected = affected;
+        this.unreported = unreported;
+        this.batchNanos = batchNanos;
+    }
+
+    public int batches() {
+        return batchNanos.length;
+    }
+
+    // flush time of every batch, in order
+    public long[] batchMillis() {
+        return Arrays.stream(batchNanos).map(TimeUnit.NANOSECONDS::toMillis).toArray();
+    }
+
+    public long totalMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(Arrays.stream(batchNanos).sum());
+    }
+
+    public long maxBatchMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(Arrays.stream(batchNanos).max().orElse(0));
+    }
+
+    @Override
+    public String toString() {
+        return "rows: " + rows + ", affected: " + affected + (unreported > 0 ? ", unreported: " + unreported : "") + ", batches: " + batches() + ", total: " + totalMillis() + " ms, max batch: " + maxBatchMillis() + " ms";
+    }
+}
@@ -0,0 +1,36 @@
+package org.logdoc.fairhttp.service.tools;
+
+import java.time.Duration;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 20.10.2026 00:10
+ * fair-http-server ☭ sweat and blood
+ */
+public final class CachePolicy {
+    public final int maxEntries, stripes;
+    public final long ttlMs;
+
+    // stripes are rounded down to a power of two
+    public CachePolicy(final int maxEntries, final Duration ttl, final int stripes) {
+        if (maxEntries < 1)
+            throw new IllegalArgumentException("Cache must hold at least one entry");
+
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttl == null || ttl.isZero() || ttl.isNegative() ? 0 : ttl.toMillis();
+        this.stripes = Integer.highestOneBit(Math.max(1, Math.min(stripes, maxEntries)));
+    }
+
+    public static CachePolicy of(final int maxEntries, final Duration ttl) {
+        return new CachePolicy(maxEntries, ttl, 16);
+    }
+
+    public static CachePolicy of(final int maxEntries) {
+        return of(maxEntries, null);
+    }
+
+    @Override
+    public String toString() {
+        return "max entries: " + maxEntries + ", ttl: " + (ttlMs > 0 ? ttlMs + " ms" : "none") + ", stripes: " + stripes;
+    }
+}
@@ -0,0 +1,89 @@
+package org.logdoc.fairhttp.service.tools;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 20.10.2026 01:50
+ * fair-http-server ☭ sweat and blood
+ *
+ * Latency histogram over fixed buckets from 100 us to 10 s, lock-free. Percentiles are bucket upper bounds.
+ */
+public final class Histogram {
+    private static final long[] bounds = {100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000}; // micros
+
+    private final LongAdder[] buckets;
+    private final LongAdder sum;
+    private final AtomicLong max;
+
+    public Histogram() {
+        buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++)
+            buckets[i] = new LongAdder();
+
+        sum = new LongAdder();
+        max = new AtomicLong(0);
+    }
+
+    public void recordNanos(final long nanos) {
+        final long us = Math.max(0, nanos / 1000);
+
+        int i = 0;
+        while (i < bounds.length && us > bounds[i])
+            i++;
+
+        buckets[i].increment();
+        sum.add(us);
+        max.accumulateAndGet(us, Math::max);
+    }
+
+    public Snapshot snapshot() {
+        final long[] counts = new long[buckets.length];
+        long count = 0;
+
+        for (int i = 0; i < counts.length; i++)
+            count += (counts[i] = buckets[i].sum());
+
+        final long maxUs = max.get();
+        final Map<String, Long> byBucket = new LinkedHashMap<>(counts.length);
+        for (int i = 0; i < counts.length; i++)
+            if (counts[i] > 0)
+                byBucket.put(i < bounds.length ? "le_" + bounds[i] / 1000d + "ms" : "inf", counts[i]);
+
+        return new Snapshot(count, count == 0 ? 0 : sum.sum() / 1000d / count, maxUs / 1000d,
+                percentile(counts, count, 0.5, maxUs), percentile(counts, count, 0.95, maxUs), percentile(counts, count, 0.99, maxUs), byBucket);
+    }
+
+    private static double percentile(final long[] counts, final long count, final double q, final long maxUs) {
+        if (count == 0)
+            return 0;
+
+        final long rank = (long) Math.ceil(q * count);
+        long seen = 0;
+
+        for (int i = 0; i < counts.length; i++)
+            if ((seen += counts[i]) >= rank)
+                return (i < bounds.length ? Math.min(bounds[i], maxUs) : maxUs) / 1000d;
+
+        return maxUs / 1000d;
+    }
+
+    public static final class Snapshot {
+        public final long count;
+        public final double meanMs, maxMs, p50Ms, p95Ms, p99Ms;
+        public final Map<String, Long> buckets;
+
+        private Snapshot(final long count, final double meanMs, final double maxMs, final double p50Ms, final double p95Ms, final double p99Ms, final Map<String, Long> buckets) {
+            this.count = count;
+            this.meanMs = meanMs;
+            this.maxMs = maxMs;
+            this.p50Ms = p50Ms;
+            this.p95Ms = p95Ms;
+            this.p99Ms = p99Ms;
+            this.buckets = buckets;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.logdoc.fairhttp.service.tools;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.logdoc.fairhttp.service.DI;
+import org.logdoc.fairhttp.service.api.helpers.Headers;
+import org.logdoc.fairhttp.service.http.ChunkedResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+
+import static org.logdoc.helpers.Texts.notNull;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 20.10.2026 00:40
+ * fair-http-server ☭ sweat and blood
+ *
+ * Mapper cursor rows written straight into a chunked response, one row in memory at a time.
+ * Query runs when the response is being written, in a session of its own, which is closed when the last row is sent
+ * or the client is gone.
+ */
+public final class JsonStream {
+    private static final Logger logger = LoggerFactory.getLogger(JsonStream.class);
+    private static final int defaultFlushRows = 1000;
+
+    private JsonStream() {
+    }
+
+    // `[row, row, ...]`
+    public static <M, T> ChunkedResponse array(final Class<M> mapperType, final Function<M, Cursor<T>> query) {
+        return array(null, mapperType, query, defaultFlushRows);
+    }
+
+    public static <M, T> ChunkedResponse array(final String named, final Class<M> mapperType, final Function<M, Cursor<T>> query, final int flushRows) {
+        return stream(named, mapperType, query, flushRows, false);
+    }
+
+    // row per line, `application/x-ndjson`
+    public static <M, T> ChunkedResponse ndjson(final Class<M> mapperType, final Function<M, Cursor<T>> query) {
+        return ndjson(null, mapperType, query, defaultFlushRows);
+    }
+
+    public static <M, T> ChunkedResponse ndjson(final String named, final Class<M> mapperType, final Function<M, Cursor<T>> query, final int flushRows) {
+        return stream(named, mapperType, query, flushRows, true);
+    }
+
+    private static <M, T> ChunkedResponse stream(final String named, final Class<M> mapperType, final Function<M, Cursor<T>> query, final int flushRows, final boolean lines) {
+        final ChunkedResponse response = ChunkedResponse.Ok(os -> {
+            final SqlSessionManager manager = DI.gain(named, SqlSessionManager.class);
+
+            if (manager == null)
+                throw new IllegalStateException("No datasource '" + notNull(named, "default") + "' configured");
+
+            try (final SqlSession session = manager.openSession(); final Cursor<T> cursor = query.apply(session.getMapper(mapperType))) {
+                write(cursor, os, flushRows, lines);
+            } catch (final IOException e) {
+                logger.debug("Stream of " + mapperType.getSimpleName() + " is interrupted :: " + e.getMessage());
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        response.header(Headers.ContentType, lines ? "application/x-ndjson; charset=UTF-8" : "application/json; charset=UTF-8");
+        return response;
+    }
+
+    // not closed on failure: the body then ends without the last chunk, so the client sees it broken rather than short
+    private static <T> void write(final Iterable<T> rows, final OutputStream os, final int flushRows, final boolean lines) throws IOException {
+        final JsonGenerator g = Json.mapper().getFactory().createGenerator(os);
+        g.setRootValueSeparator(null);
+
+        if (!lines)
+            g.writeStartArray();
+
+        int pending = 0;
+        for (final T row : rows) {
+            g.writeObject(row);
+
+            if (lines)
+                g.writeRaw('\n');
+
+            if (flushRows > 0 && ++pending >= flushRows) { // client sees rows in portions, not when the buffer happens to fill
+                g.flush();
+                pending = 0;
+            }
+        }
+
+        if (!lines)
+            g.writeEndArray();
+
+        g.close();
+    }
+}
@@ -15,15 +15,23 @@ public final class MapperProvider<T> implements Supplier<T> {
 
     private final Class<T> mapperType;
     private final String named;
+    private volatile Bound<T> cached;
 
     public MapperProvider(final String named, final Class<T> mapperType) {
         this.named = named;
         this.mapperType = mapperType;
     }
 
+    // proxy is stateless and goes to the manager, which uses the thread's session, so one proxy per manager is enough
     @Override
     public T get() {
-        return DI.gain(named, SqlSessionManager.class).getMapper(mapperType);
+        final SqlSessionManager manager = DI.gain(named, SqlSessionManager.class);
+        Bound<T> c = cached;
+
+        if (c == null || c.manager != manager)
+            cached = c = new Bound<>(manager, RoutingDataSource.readsToReplicas(manager, mapperType, manager.getMapper(mapperType)));
+
+        return c.mapper;
     }
 
     @Override
@@ -40,4 +48,14 @@ public final class MapperProvider<T> implements Supplier<T> {
         MapperProvider other = (MapperProvider) obj;
         return Objects.equals(this.mapperType, other.mapperType);
     }
+
+    private static final class Bound<T> {
+        private final SqlSessionManager manager;
+        private final T mapper;
+
+        private Bound(final SqlSessionManager manager, final T mapper) {
+            this.manager = manager;
+            this.mapper = mapper;
+        }
+    }
 }
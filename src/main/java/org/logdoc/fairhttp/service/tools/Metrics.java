@@ -0,0 +1,45 @@
+package org.logdoc.fairhttp.service.tools;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 20.10.2026 01:50
+ * fair-http-server ☭ sweat and blood
+ *
+ * Named sources of metrics, read on demand. Snapshots are plain objects with public fields (or maps of them),
+ * so they serialize to json as is. Exposed by the server at `fair.http.health.metrics` path.
+ */
+public final class Metrics {
+    private static final Map<String, Supplier<?>> sources = new ConcurrentHashMap<>(16);
+
+    private Metrics() {
+    }
+
+    public static void register(final String name, final Supplier<?> snapshot) {
+        if (name != null && snapshot != null)
+            sources.put(name, snapshot);
+    }
+
+    public static void unregister(final String name) {
+        if (name != null)
+            sources.remove(name);
+    }
+
+    public static Map<String, Object> snapshot() {
+        final Map<String, Object> all = new TreeMap<>();
+
+        sources.forEach((name, s) -> {
+            try {
+                all.put(name, s.get());
+            } catch (final Exception e) {
+                all.put(name, "unavailable: " + e.getMessage());
+            }
+        });
+
+        return all;
+    }
+}
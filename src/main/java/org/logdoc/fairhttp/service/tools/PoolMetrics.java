@@ -0,0 +1,101 @@
+package org.logdoc.fairhttp.service.tools;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.logdoc.helpers.Texts.notNull;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 20.10.2026 01:50
+ * fair-http-server ☭ sweat and blood
+ *
+ * Hikari pool state and connection wait/usage times, every pool of the source is registered in Metrics as `db.<source>.pool.<pool name>`.
+ * Long waits with all connections active and pending threads mean the pool is starving, not that SQL is slow.
+ */
+public final class PoolMetrics implements MetricsTrackerFactory {
+    private final String source;
+
+    public PoolMetrics(final String source) {
+        this.source = notNull(source, "default");
+    }
+
+    @Override
+    public IMetricsTracker create(final String poolName, final PoolStats poolStats) {
+        final String name = "db." + source + ".pool." + poolName;
+        final Tracker tracker = new Tracker(name, poolStats);
+
+        Metrics.register(name, tracker::snapshot);
+
+        return tracker;
+    }
+
+    private static final class Tracker implements IMetricsTracker {
+        private final String name;
+        private final PoolStats stats;
+        private final Histogram wait, usage, creation;
+        private final LongAdder timeouts;
+
+        private Tracker(final String name, final PoolStats stats) {
+            this.name = name;
+            this.stats = stats;
+
+            wait = new Histogram();
+            usage = new Histogram();
+            creation = new Histogram();
+            timeouts = new LongAdder();
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(final long elapsedAcquiredNanos) {
+            wait.recordNanos(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(final long elapsedBorrowedMillis) {
+            usage.recordNanos(TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis));
+        }
+
+        @Override
+        public void recordConnectionCreatedMillis(final long connectionCreatedMillis) {
+            creation.recordNanos(TimeUnit.MILLISECONDS.toNanos(connectionCreatedMillis));
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+
+        @Override
+        public void close() {
+            Metrics.unregister(name);
+        }
+
+        private PoolSnapshot snapshot() {
+            return new PoolSnapshot(stats.getActiveConnections(), stats.getIdleConnections(), stats.getPendingThreads(), stats.getTotalConnections(), stats.getMaxConnections(),
+                    timeouts.sum(), wait.snapshot(), usage.snapshot(), creation.snapshot());
+        }
+    }
+
+    public static final class PoolSnapshot {
+        public final int active, idle, pending, total, max;
+        public final long timeouts;
+        public final Histogram.Snapshot wait, usage, creation;
+
+        private PoolSnapshot(final int active, final int idle, final int pending, final int total, final int max, final long timeouts, final Histogram.Snapshot wait, final Histogram.Snapshot usage, final Histogram.Snapshot creation) {
+            this.active = active;
+            this.idle = idle;
+            this.pending = pending;
+            this.total = total;
+            this.max = max;
+            this.timeouts = timeouts;
+            this.wait = wait;
+            this.usage = usage;
+            this.creation = creation;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.logdoc.fairhttp.service.tools;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.logdoc.helpers.Texts.notNull;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 20.10.2026 00:10
+ * fair-http-server ☭ sweat and blood
+ *
+ * In-process MyBatis second level cache of one mapper namespace. Entries are spread over independently locked LRU stripes,
+ * each stripe holds its share of max entries. MyBatis clears the whole namespace when any insert/update/delete of it commits.
+ * Cached results are shared between sessions as is, so they must not be modified by callers.
+ */
+public final class QueryCache implements Cache {
+    private static final Logger logger = LoggerFactory.getLogger(QueryCache.class);
+    private static final Map<String, QueryCache> registry = new ConcurrentHashMap<>(8);
+
+    static {
+        Metrics.register("db.query_cache", QueryCache::statsAll);
+    }
+
+    private final String id;
+    private final CachePolicy policy;
+    private final Stripe[] stripes;
+    private final LongAdder hits, misses, puts, evictions, expirations, clears;
+
+    QueryCache(final String id, final CachePolicy policy) {
+        this.id = id;
+        this.policy = policy;
+
+        stripes = new Stripe[policy.stripes];
+        final int perStripe = Math.max(1, policy.maxEntries / policy.stripes);
+        for (int i = 0; i < stripes.length; i++)
+            stripes[i] = new Stripe(perStripe);
+
+        hits = new LongAdder();
+        misses = new LongAdder();
+        puts = new LongAdder();
+        evictions = new LongAdder();
+        expirations = new LongAdder();
+        clears = new LongAdder();
+    }
+
+    // registers the cache for namespace; statements use it only if their mapper refers to it with @CacheNamespaceRef
+    // (or <cache-ref> in xml), so the mapper's own choice of cache and decorators is never overridden
+    public static QueryCache register(final String source, final Configuration configuration, final String namespace, final CachePolicy policy) {
+        if (configuration.hasCache(namespace)) {
+            logger.warn("Namespace '" + namespace + "' already has a cache, " + configuration.getCache(namespace).getClass().getName() + " is kept");
+            return null;
+        }
+
+        final QueryCache cache = new QueryCache(namespace, policy);
+        configuration.addCache(cache);
+        registry.put(key(source, namespace), cache);
+        check(configuration, namespace);
+
+        logger.info("Query cache for '" + namespace + "' :: " + policy);
+        return cache;
+    }
+
+    // warns if statements of the namespace are known and don't use its query cache
+    public static void check(final Configuration configuration, final String namespace) {
+        if (!configuration.hasCache(namespace) || !(configuration.getCache(namespace) instanceof QueryCache))
+            return;
+
+        final Cache cache = configuration.getCache(namespace);
+
+        for (final Object o : configuration.getMappedStatements().toArray()) // strict map keeps short names too, so there are duplicates
+            if (o instanceof MappedStatement && ((MappedStatement) o).getId().startsWith(namespace + ".") && ((MappedStatement) o).getCache() != cache) {
+                logger.warn("Statements of '" + namespace + "' don't use its query cache, annotate the mapper with @CacheNamespaceRef(name = \"" + namespace + "\")");
+                return;
+            }
+    }
+
+    public static Map<String, QueryCacheStats> statsAll() {
+        final Map<String, QueryCacheStats> stats = new TreeMap<>();
+        registry.forEach((k, c) -> stats.put(k, c.stats()));
+
+        return stats;
+    }
+
+    private static String key(final String source, final String namespace) {
+        return notNull(source, "default") + ":" + namespace;
+    }
+
+    public QueryCacheStats stats() {
+        return new QueryCacheStats(hits.sum(), misses.sum(), puts.sum(), evictions.sum(), expirations.sum(), clears.sum(), getSize());
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public void putObject(final Object key, final Object value) {
+        if (value == null) // TransactionalCache marks misses so at commit, nothing to keep
+            return;
+
+        final Stripe s = stripe(key);
+        final long expires = policy.ttlMs > 0 ? System.currentTimeMillis() + policy.ttlMs : Long.MAX_VALUE;
+
+        synchronized (s) {
+            s.put(key, new Entry(value, expires));
+            puts.increment();
+
+            final Iterator<Map.Entry<Object, Entry>> i = s.entrySet().iterator();
+            while (s.size() > s.capacity && i.hasNext()) {
+                i.next();
+                i.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    @Override
+    public Object getObject(final Object key) {
+        final Stripe s = stripe(key);
+        final Entry e;
+
+        synchronized (s) {
+            e = s.get(key);
+
+            if (e != null && e.expires < System.currentTimeMillis()) {
+                s.remove(key);
+                expirations.increment();
+                misses.increment();
+                return null;
+            }
+        }
+
+        if (e == null || e.value == null) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return e.value;
+    }
+
+    @Override
+    public Object removeObject(final Object key) {
+        final Stripe s = stripe(key);
+        final Entry e;
+
+        synchronized (s) {
+            e = s.remove(key);
+        }
+
+        return e == null ? null : e.value;
+    }
+
+    @Override
+    public void clear() {
+        for (final Stripe s : stripes)
+            synchronized (s) {
+                s.clear();
+            }
+
+        clears.increment();
+    }
+
+    @Override
+    public int getSize() {
+        int size = 0;
+
+        for (final Stripe s : stripes)
+            synchronized (s) {
+                size += s.size();
+            }
+
+        return size;
+    }
+
+    private Stripe stripe(final Object key) {
+        final int h = key == null ? 0 : key.hashCode();
+
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
+    private static final class Stripe extends LinkedHashMap<Object, Entry> {
+        private final int capacity;
+
+        private Stripe(final int capacity) {
+            super(Math.min(capacity, 1024), 0.75f, true);
+            this.capacity = capacity;
+        }
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long expires;
+
+        private Entry(final Object value, final long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+}
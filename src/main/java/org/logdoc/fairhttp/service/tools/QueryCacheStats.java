@@ -0,0 +1,29 @@
+package org.logdoc.fairhttp.service.tools;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 20.10.2026 00:10
+ * fair-http-server ☭ sweat and blood
+ */
+public final class QueryCacheStats {
+    public final long hits, misses, puts, evictions, expirations, clears, entries;
+
+    QueryCacheStats(final long hits, final long misses, final long puts, final long evictions, final long expirations, final long clears, final long entries) {
+        this.hits = hits;
+        this.misses = misses;
+        this.puts = puts;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.clears = clears;
+        this.entries = entries;
+    }
+
+    public double hitRate() {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    @Override
+    public String toString() {
+        return "hits: " + hits + ", misses: " + misses + ", puts: " + puts + ", evictions: " + evictions + ", expirations: " + expirations + ", clears: " + clears + ", entries: " + entries;
+    }
+}
@@ -0,0 +1,263 @@
+package org.logdoc.fairhttp.service.tools;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.apache.ibatis.session.TransactionIsolationLevel;
+import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 20.10.2026 01:10
+ * fair-http-server ☭ sweat and blood
+ *
+ * Primary and its replicas under one source name. Connections for reads go to the replica with the least active
+ * connections, skipping exhausted and recently failed ones; everything else, and reads nobody else can take, go to primary.
+ *
+ * What is a read is decided once per session, when its transaction is created (see Transactions): a session opened inside
+ * reading() (SqlScope.readOnly, `read_only_methods` requests), or the one-statement auto-commit session of a select mapper call
+ * made outside of any session (see readsToReplicas). Any other session, opened by hand or by SqlScope.transactional, uses primary,
+ * so its writes and locking reads never land on a replica and it always sees its own writes.
+ */
+public final class RoutingDataSource implements DataSource, Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(RoutingDataSource.class);
+    private static final ThreadLocal<Boolean> route = new ThreadLocal<>(); // true - replica, false - primary, null - not decided
+    private static final long downMs = 5000;
+
+    private final HikariDataSource primary;
+    private final HikariDataSource[] replicas;
+    private final long[] downUntil;
+    private final AtomicLongArray served;
+    private final AtomicLong failovers, fallbacks;
+    private final RoutingDataSource reads; // same pools, connections of read-only sessions
+
+    public RoutingDataSource(final HikariDataSource primary, final List<HikariDataSource> replicas) {
+        this.primary = primary;
+        this.replicas = replicas.toArray(new HikariDataSource[0]);
+
+        downUntil = new long[this.replicas.length];
+        served = new AtomicLongArray(this.replicas.length);
+        failovers = new AtomicLong(0);
+        fallbacks = new AtomicLong(0);
+        reads = new RoutingDataSource(this);
+    }
+
+    private RoutingDataSource(final RoutingDataSource source) {
+        primary = source.primary;
+        replicas = source.replicas;
+        downUntil = source.downUntil;
+        served = source.served;
+        failovers = source.failovers;
+        fallbacks = source.fallbacks;
+        reads = this;
+    }
+
+    // sessions opened by the block are read-only and take connections from a replica, unless an outer block has chosen already
+    public static <T> T reading(final Supplier<T> block) {
+        return pinned(true, block);
+    }
+
+    static <T> T pinned(final boolean read, final Supplier<T> block) {
+        if (route.get() != null)
+            return block.get();
+
+        route.set(read);
+        try {
+            return block.get();
+        } finally {
+            route.remove();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (reads != this || replicas.length == 0)
+            return primary.getConnection();
+
+        final long now = System.currentTimeMillis();
+        final boolean[] tried = new boolean[replicas.length];
+
+        for (int attempt = 0; attempt < replicas.length; attempt++) {
+            final int i = leastActive(tried, now);
+
+            if (i < 0)
+                break;
+
+            tried[i] = true;
+            try {
+                final Connection c = replicas[i].getConnection();
+                served.incrementAndGet(i);
+
+                return c;
+            } catch (final SQLException e) {
+                downUntil[i] = System.currentTimeMillis() + downMs;
+                failovers.incrementAndGet();
+                logger.warn("Replica " + name(i) + " failed, marked down for " + downMs + " ms :: " + e.getMessage());
+            }
+        }
+
+        fallbacks.incrementAndGet();
+        return primary.getConnection();
+    }
+
+    private int leastActive(final boolean[] tried, final long now) {
+        int best = -1, bestActive = Integer.MAX_VALUE;
+
+        for (int i = 0; i < replicas.length; i++) {
+            if (tried[i] || downUntil[i] > now || replicas[i].isClosed())
+                continue;
+
+            final HikariPoolMXBean pool = replicas[i].getHikariPoolMXBean();
+            final int active = pool == null ? 0 : pool.getActiveConnections();
+
+            if (pool != null && (pool.getThreadsAwaitingConnection() > 0 || active >= replicas[i].getMaximumPoolSize())) // exhausted, would only wait
+                continue;
+
+            if (active < bestActive) {
+                best = i;
+                bestActive = active;
+            }
+        }
+
+        return best;
+    }
+
+    private String name(final int i) {
+        return replicas[i].getPoolName() == null ? "#" + i : "'" + replicas[i].getPoolName() + "'";
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(final PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(final int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> iface) throws SQLException {
+        if (iface.isInstance(this))
+            return iface.cast(this);
+
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(final Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    @Override
+    public void close() {
+        primary.close();
+
+        for (final HikariDataSource r : replicas)
+            r.close();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("failovers: " + failovers.get() + ", primary fallbacks: " + fallbacks.get());
+
+        for (int i = 0; i < replicas.length; i++)
+            sb.append(", replica ").append(name(i)).append(": ").append(served.get(i));
+
+        return sb.toString();
+    }
+
+    // mapper of the manager whose select calls made outside of any session run as reads: each of them
+    // gets an auto-commit session of its own, which holds this one statement only
+    @SuppressWarnings("unchecked")
+    public static <T> T readsToReplicas(final SqlSessionManager manager, final Class<T> mapperType, final T mapper) {
+        final Configuration configuration = manager.getConfiguration();
+
+        if (configuration == null || !(configuration.getEnvironment().getDataSource() instanceof RoutingDataSource))
+            return mapper;
+
+        final Map<Method, Boolean> selects = new ConcurrentHashMap<>(16);
+
+        return (T) Proxy.newProxyInstance(mapperType.getClassLoader(), new Class<?>[]{mapperType}, (proxy, method, args) -> {
+            final boolean read = route.get() == null && !manager.isManagedSessionStarted()
+                    && selects.computeIfAbsent(method, m -> isSelect(configuration, mapperType, m));
+
+            if (read)
+                route.set(true);
+
+            try {
+                return method.invoke(mapper, args);
+            } catch (final InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (read)
+                    route.remove();
+            }
+        });
+    }
+
+    // select which doesn't ask for a cache flush, those are usually locking or otherwise not plain reads
+    private static boolean isSelect(final Configuration configuration, final Class<?> mapperType, final Method method) {
+        if (method.getDeclaringClass() == Object.class || method.isDefault())
+            return false;
+
+        for (final String id : new String[]{mapperType.getName() + "." + method.getName(), method.getDeclaringClass().getName() + "." + method.getName()})
+            if (configuration.hasStatement(id)) {
+                final MappedStatement ms = configuration.getMappedStatement(id);
+
+                return ms.getSqlCommandType() == SqlCommandType.SELECT && !ms.isFlushCacheRequired();
+            }
+
+        return false;
+    }
+
+    // picks the session's connection source when its transaction is created: replicas for sessions opened inside reading()
+    public static final class Transactions extends JdbcTransactionFactory {
+        @Override
+        public Transaction newTransaction(final DataSource dataSource, final TransactionIsolationLevel level, final boolean autoCommit) {
+            return super.newTransaction(route.get() == Boolean.TRUE && dataSource instanceof RoutingDataSource ? ((RoutingDataSource) dataSource).reads : dataSource, level, autoCommit);
+        }
+    }
+}
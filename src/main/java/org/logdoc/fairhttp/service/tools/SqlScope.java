@@ -0,0 +1,211 @@
+package org.logdoc.fairhttp.service.tools;
+
+import com.typesafe.config.Config;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.logdoc.fairhttp.service.DI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.logdoc.fairhttp.service.tools.ConfigTools.sureBool;
+import static org.logdoc.fairhttp.service.tools.ConfigTools.sureNN;
+import static org.logdoc.helpers.Texts.notNull;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 23:05
+ * fair-http-server ☭ sweat and blood
+ *
+ * One SqlSession for a whole block of mapper calls: the session is bound to the current thread, takes a connection on the first
+ * statement and gives it back when the block ends - committed if the block returned, rolled back if it threw.
+ * Nested blocks join the outer session, so a block must not share its thread with unrelated work while it runs
+ * (request handlers get plain threads of their own for that).
+ */
+public final class SqlScope {
+    private static final Logger logger = LoggerFactory.getLogger(SqlScope.class);
+
+    private static final int defaultBatchSize = 500;
+    private static final Map<String, Integer> batchSizes = new ConcurrentHashMap<>(4);
+
+    private static volatile boolean perRequest;
+    private static volatile ExecutorType requestExecutor; // null - source's default
+    private static volatile Set<String> readOnlyMethods = Collections.emptySet();
+
+    private SqlScope() {
+    }
+
+    public static void configure(final Config cfg) {
+        if (cfg == null)
+            return;
+
+        perRequest = sureBool(cfg, "per_request");
+        readOnlyMethods = ConfigTools.sureStrings(cfg, "read_only_methods").stream().map(m -> m.trim().toUpperCase()).collect(Collectors.toSet());
+
+        if (sureNN(cfg, "executor"))
+            try {
+                requestExecutor = ExecutorType.valueOf(cfg.getString("executor").trim().toUpperCase());
+            } catch (final Exception e) {
+                logger.warn("Unknown executor type '" + cfg.getString("executor") + "', source's default is used");
+            }
+    }
+
+    public static <T> T transactional(final Supplier<T> block) {
+        return transactional(null, null, block);
+    }
+
+    public static void transactional(final Runnable block) {
+        transactional(null, null, () -> {
+            block.run();
+            return null;
+        });
+    }
+
+    public static <T> T transactional(final String named, final ExecutorType executor, final Supplier<T> block) {
+        return RoutingDataSource.pinned(false, () -> session(named, executor, block));
+    }
+
+    // same, but the session's connection comes from a replica if the source has them
+    public static <T> T readOnly(final Supplier<T> block) {
+        return readOnly(null, block);
+    }
+
+    public static <T> T readOnly(final String named, final Supplier<T> block) {
+        return RoutingDataSource.reading(() -> session(named, null, block));
+    }
+
+    private static <T> T session(final String named, final ExecutorType executor, final Supplier<T> block) {
+        final SqlSessionManager manager = DI.gain(named, SqlSessionManager.class);
+
+        if (manager == null || manager.isManagedSessionStarted())
+            return block.get();
+
+        if (executor == null)
+            manager.startManagedSession();
+        else
+            manager.startManagedSession(executor);
+
+        try {
+            final T result = block.get();
+            manager.commit();
+
+            return result;
+        } catch (final RuntimeException | Error e) {
+            try {
+                manager.rollback();
+            } catch (final Exception re) {
+                logger.warn("Rollback failed :: " + re.getMessage());
+            }
+
+            throw e;
+        } finally {
+            manager.close(); // also unbinds the session from the thread
+        }
+    }
+
+    // batch size for bulk() of a source, `db.<name>.batch_size`
+    public static void batchSize(final String named, final int size) {
+        if (size > 0)
+            batchSizes.put(notNull(named), size);
+    }
+
+    public static <M, T> BulkResult bulk(final Class<M> mapperType, final Iterable<? extends T> rows, final BiConsumer<M, T> write) {
+        return bulk(null, mapperType, rows, 0, write);
+    }
+
+    // rows go through a BATCH executor session of its own and are flushed every batchSize rows (0 - source's batch size),
+    // so a batch costs one round trip. All or nothing: committed at the end, rolled back on any failure.
+    // Inside a transactional block or a per-request session rows join that session instead: its connection and transaction,
+    // its executor (batched only if it is BATCH, see `fair.sql_session.executor`), commit is up to the block
+    public static <M, T> BulkResult bulk(final String named, final Class<M> mapperType, final Iterable<? extends T> rows, final int batchSize, final BiConsumer<M, T> write) {
+        return RoutingDataSource.pinned(false, () -> bulk0(named, mapperType, rows, batchSize, write));
+    }
+
+    private static <M, T> BulkResult bulk0(final String named, final Class<M> mapperType, final Iterable<? extends T> rows, final int batchSize, final BiConsumer<M, T> write) {
+        final SqlSessionManager manager = DI.gain(named, SqlSessionManager.class);
+
+        if (manager == null)
+            throw new IllegalStateException("No datasource '" + notNull(named, "default") + "' configured");
+
+        final int size = batchSize > 0 ? batchSize : batchSizes.getOrDefault(notNull(named), defaultBatchSize);
+        final BulkResult result;
+
+        if (manager.isManagedSessionStarted())
+            result = write(manager, mapperType, rows, size, write);
+        else
+            try (final SqlSession session = manager.openSession(ExecutorType.BATCH, false)) {
+                try {
+                    result = write(session, mapperType, rows, size, write);
+                    session.commit();
+                } catch (final RuntimeException | Error e) {
+                    session.rollback();
+                    throw e;
+                }
+            }
+
+        logger.debug("Bulk write into " + mapperType.getSimpleName() + " :: " + result);
+
+        return result;
+    }
+
+    private static <M, T> BulkResult write(final SqlSession session, final Class<M> mapperType, final Iterable<? extends T> rows, final int size, final BiConsumer<M, T> write) {
+        final List<Long> timings = new ArrayList<>(16);
+        final long[] counts = new long[2]; // affected, unreported
+        final M mapper = session.getMapper(mapperType);
+        long count = 0;
+        int pending = 0;
+
+        for (final T row : rows) {
+            write.accept(mapper, row);
+            count++;
+
+            if (++pending == size) {
+                flush(session, pending, counts, timings);
+                pending = 0;
+            }
+        }
+
+        if (pending > 0)
+            flush(session, pending, counts, timings);
+
+        return new BulkResult(count, counts[0], counts[1], timings.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    private static void flush(final SqlSession session, final int rows, final long[] counts, final List<Long> timings) {
+        final long started = System.nanoTime();
+        final List<BatchResult> results = session.flushStatements();
+
+        if (results.isEmpty()) // not a batch executor, statements went one by one and their counts are gone
+            counts[1] += rows;
+
+        for (final BatchResult br : results)
+            for (final int c : br.getUpdateCounts())
+                if (c >= 0)
+                    counts[0] += c;
+                else if (c == Statement.SUCCESS_NO_INFO)
+                    counts[1]++;
+
+        timings.add(System.nanoTime() - started);
+    }
+
+    // handler call of a request, wrapped into a default source session if `fair.sql_session.per_request` is set
+    // requests of `read_only_methods` get a read-only session, which goes to a replica if the source has them
+    public static <T> Supplier<T> perRequest(final String method, final Supplier<T> handler) {
+        if (!perRequest)
+            return handler;
+
+        if (readOnlyMethods.contains(method))
+            return () -> readOnly(null, handler);
+
+        final ExecutorType executor = requestExecutor;
+        return () -> transactional(null, executor, handler);
+    }
+}
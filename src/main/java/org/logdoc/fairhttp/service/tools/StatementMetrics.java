@@ -0,0 +1,103 @@
+package org.logdoc.fairhttp.service.tools;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.logdoc.helpers.Texts.notNull;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 20.10.2026 01:50
+ * fair-http-server ☭ sweat and blood
+ *
+ * Per mapped statement latency and row counts of one source, slow statements are logged.
+ * Latency of a call made outside of a session block includes connection checkout - compare with the pool's wait time.
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "queryCursor", args = {MappedStatement.class, Object.class, RowBounds.class})
+})
+public final class StatementMetrics implements Interceptor {
+    private static final Logger logger = LoggerFactory.getLogger(StatementMetrics.class);
+
+    private final String source;
+    private final long slowNanos;
+    private final Map<String, Stat> statements;
+
+    public StatementMetrics(final String source, final long slowMs) {
+        this.source = notNull(source, "default");
+        this.slowNanos = slowMs > 0 ? TimeUnit.MILLISECONDS.toNanos(slowMs) : Long.MAX_VALUE;
+
+        statements = new ConcurrentHashMap<>(64);
+    }
+
+    @Override
+    public Object intercept(final Invocation invocation) throws Throwable {
+        final String id = ((MappedStatement) invocation.getArgs()[0]).getId();
+        final Stat stat = statements.computeIfAbsent(id, k -> new Stat());
+        final long started = System.nanoTime();
+        long rows = 0;
+
+        try {
+            final Object result = invocation.proceed();
+
+            if (result instanceof Integer)
+                rows = (Integer) result;
+            else if (result instanceof Collection)
+                rows = ((Collection<?>) result).size();
+
+            return result;
+        } catch (final Throwable t) {
+            stat.errors.increment();
+            throw t;
+        } finally {
+            final long took = System.nanoTime() - started;
+
+            stat.latency.recordNanos(took);
+            if (rows > 0)
+                stat.rows.add(rows);
+
+            if (took >= slowNanos)
+                logger.warn("Slow statement [" + source + "] " + id + " :: " + TimeUnit.NANOSECONDS.toMillis(took) + " ms, rows: " + rows);
+        }
+    }
+
+    public Map<String, StatementSnapshot> snapshot() {
+        final Map<String, StatementSnapshot> all = new TreeMap<>();
+        statements.forEach((id, s) -> all.put(id, new StatementSnapshot(s.rows.sum(), s.errors.sum(), s.latency.snapshot())));
+
+        return all;
+    }
+
+    private static final class Stat {
+        private final Histogram latency = new Histogram();
+        private final LongAdder rows = new LongAdder(), errors = new LongAdder();
+    }
+
+    public static final class StatementSnapshot {
+        public final long rows, errors;
+        public final Histogram.Snapshot latency;
+
+        private StatementSnapshot(final long rows, final long errors, final Histogram.Snapshot latency) {
+            this.rows = rows;
+            this.errors = errors;
+            this.latency = latency;
+        }
+    }
+}
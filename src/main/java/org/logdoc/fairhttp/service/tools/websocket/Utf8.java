@@ -0,0 +1,56 @@
+package org.logdoc.fairhttp.service.tools.websocket;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 14:02
+ * fair-http-server ☭ sweat and blood
+ * <p>
+ * Incremental UTF-8 validator, DFA by Bjoern Hoehrmann (http://bjoern.hoehrmann.de/utf-8/decoder/dfa/).
+ * State is carried between calls, so a sequence may be split at any byte.
+ */
+public final class Utf8 {
+    public static final int ACCEPT = 0, REJECT = 12;
+
+    private static final byte[] types = new byte[256];
+    private static final byte[] states = {
+            0, 12, 24, 36, 60, 96, 84, 12, 12, 12, 48, 72, 12, 12, 12, 12, 12, 12, 12, 12, 12, 12, 12, 12,
+            12, 0, 12, 12, 12, 12, 12, 0, 12, 0, 12, 12, 12, 24, 12, 12, 12, 12, 12, 24, 12, 24, 12, 12,
+            12, 12, 12, 12, 12, 12, 12, 24, 12, 12, 12, 12, 12, 24, 12, 12, 12, 12, 12, 12, 12, 24, 12, 12,
+            12, 12, 12, 12, 12, 12, 12, 36, 12, 36, 12, 12, 12, 36, 12, 12, 12, 12, 12, 36, 12, 36, 12, 12,
+            12, 36, 12, 12, 12, 12, 12, 12, 12, 12, 12, 12
+    };
+
+    static {
+        fill(0x80, 0x8F, 1);
+        fill(0x90, 0x9F, 9);
+        fill(0xA0, 0xBF, 7);
+        fill(0xC0, 0xC1, 8);
+        fill(0xC2, 0xDF, 2);
+        fill(0xE0, 0xE0, 10);
+        fill(0xE1, 0xEF, 3);
+        fill(0xED, 0xED, 4);
+        fill(0xF0, 0xF0, 11);
+        fill(0xF1, 0xF3, 6);
+        fill(0xF4, 0xF4, 5);
+        fill(0xF5, 0xFF, 8);
+    }
+
+    private Utf8() {
+    }
+
+    private static void fill(final int from, final int to, final int type) {
+        for (int i = from; i <= to; i++)
+            types[i] = (byte) type;
+    }
+
+    public static int validate(int state, final byte[] data, final int from, final int to) {
+        for (int i = from; i < to && state != REJECT; i++)
+            state = states[state + types[data[i] & 0xFF]];
+
+        return state;
+    }
+
+    public static boolean isValid(final byte[] data) {
+        return data == null || validate(ACCEPT, data, 0, data.length) == ACCEPT;
+    }
+}
@@ -1,17 +1,31 @@
 package org.logdoc.fairhttp.service.tools.websocket.frames;
 
 import org.logdoc.fairhttp.service.tools.websocket.Opcode;
-
-import static org.logdoc.helpers.Texts.isValidUTF8;
+import org.logdoc.fairhttp.service.tools.websocket.Utf8;
 
 public class TextFrame extends DataFrame {
+    private boolean validated;
 
     public TextFrame() {
         super(Opcode.TEXT);
     }
 
+    /**
+     * Sets payload which is already known to be well-formed UTF-8 (e.g. produced by String.getBytes), so it is not scanned once again
+     */
+    public void setValidPayload(final byte[] payload) {
+        super.setPayload(payload);
+        validated = true;
+    }
+
+    @Override
+    public void setPayload(final byte[] payload) {
+        super.setPayload(payload);
+        validated = false;
+    }
+
     @Override
     public boolean isValid() {
-        return super.isValid() && isValidUTF8(getPayloadData());
+        return super.isValid() && (validated || Utf8.isValid(getPayloadData()));
     }
 }